@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import javax.swing.SwingUtilities;
+
+/**
+ * Time to colour a complete 1920x1080 frame with MandelModel.getImage().
+ * The model is only touched on the event dispatch thread, as in the
+ * application, so each measurement includes a hand-off to that thread.
+ *
+ * @author agent <agent@local>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColourBenchmark {
+
+    @Param({"rainbow", "ice"})
+    public String colourModelName;
+
+    private MandelModel model;
+    private MandelColourModel colourModel;
+    private BufferedImage image;
+
+    private final Runnable colourFrame = new Runnable() {
+        @Override
+        public void run() {
+            image = model.getImage(colourModel);
+        }
+    };
+
+    @Setup
+    public void setup() throws InterruptedException, InvocationTargetException {
+        colourModel = colourModelName.equals("ice")
+            ? new IceColourModel() : new RainbowColourModel();
+
+        final CountDownLatch frameDone = new CountDownLatch(1);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                model = new MandelModel(500, 1920, 1080);
+                model.setProgressive(false);
+                model.addChangeListener(new MandelModelChangeListener() {
+                    @Override
+                    public void modelHasChanged() {
+                        if (model.isFrameComplete())
+                            frameDone.countDown();
+                    }
+                });
+                model.update();
+            }
+        });
+        frameDone.await();
+    }
+
+    @Benchmark
+    public BufferedImage getImage()
+        throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(colourFrame);
+        return image;
+    }
+}
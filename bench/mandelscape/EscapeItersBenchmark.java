@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the scalar escape time kernel for a single point inside the
+ * set, near its boundary and well outside it.
+ *
+ * @author agent <agent@local>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EscapeItersBenchmark {
+
+    private static final int MAX_ITER = 1000;
+
+    /**
+     * interior: centre of the period 3 bulb, bounded by cycle detection.
+     * boundary: seahorse valley point which exhausts maxIter.
+     * exterior: point which escapes after a few iterations.
+     */
+    @Param({"interior", "boundary", "exterior"})
+    public String point;
+
+    private double cr, ci;
+
+    @Setup
+    public void setup() {
+        if (point.equals("interior")) {
+            cr = -0.1225611668766536;
+            ci = 0.7448617666197442;
+        } else if (point.equals("boundary")) {
+            cr = -0.743643887037158;
+            ci = 0.131825904205312;
+        } else {
+            cr = 0.5;
+            ci = 0.5;
+        }
+    }
+
+    @Benchmark
+    public int getEscapeIters() {
+        return EscapeKernel.getEscapeIters(cr, ci, MAX_ITER);
+    }
+}
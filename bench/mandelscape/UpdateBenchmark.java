@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import javax.swing.SwingUtilities;
+
+/**
+ * Time for MandelModel.update() to deliver a complete frame of the full
+ * set.  Alternate invocations zoom very slightly in and out, so that no
+ * part of the previous frame can be reused and every frame is computed
+ * from scratch.  The model is only touched on the event dispatch
+ * thread, as in the application.
+ *
+ * @author agent <agent@local>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpdateBenchmark {
+
+    private static final double ZOOM_FACTOR = 1.0001;
+
+    @Param({"800x800", "1920x1080", "3840x2160"})
+    public String size;
+
+    private MandelModel model;
+    private int width, height;
+    private boolean zoomedIn = false;
+    private volatile CountDownLatch frameDone;
+
+    @Setup
+    public void setup() throws InterruptedException, InvocationTargetException {
+        String[] dims = size.split("x");
+        width = Integer.parseInt(dims[0]);
+        height = Integer.parseInt(dims[1]);
+
+        frameDone = new CountDownLatch(1);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                model = new MandelModel(500, width, height);
+                model.setProgressive(false);
+                model.addChangeListener(new MandelModelChangeListener() {
+                    @Override
+                    public void modelHasChanged() {
+                        if (model.isFrameComplete())
+                            frameDone.countDown();
+                    }
+                });
+                model.update();
+            }
+        });
+        frameDone.await();
+    }
+
+    @Benchmark
+    public void update() throws InterruptedException, InvocationTargetException {
+        frameDone = new CountDownLatch(1);
+        final double factor = zoomedIn ? 1.0/ZOOM_FACTOR : ZOOM_FACTOR;
+        zoomedIn = !zoomedIn;
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                model.zoom(width/2, height/2, factor);
+            }
+        });
+        frameDone.await();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.util.Arrays;
+
+/**
+ * Extra samples of the pixels of a frame which lie on edges, i.e. whose
+ * iteration counts differ from those of a neighbouring pixel by more
+ * than a threshold.  Each such pixel is sampled on a regular n x n grid,
+ * and its colour is taken to be the average of the colours of these
+ * samples, so that colours are averaged without fixing the colour model.
+ *
+ * Instances are immutable once constructed.
+ *
+ * @author agent <agent@local>
+ */
+public class EdgeSamples {
+
+    /**
+     * View from which the frame was computed.
+     */
+    public final MandelView view;
+
+    /**
+     * Number of samples along each side of a pixel.
+     */
+    public final int samplesPerAxis;
+
+    /**
+     * Row-major index in the frame of each supersampled pixel.
+     */
+    final int[] pixels;
+
+    /**
+     * Iteration counts of the samples, samplesPerAxis^2 consecutive
+     * values per pixel.
+     */
+    final int[] iters;
+
+    EdgeSamples(MandelView view, int samplesPerAxis, int[] pixels,
+        int[] iters) {
+        this.view = view;
+        this.samplesPerAxis = samplesPerAxis;
+        this.pixels = pixels;
+        this.iters = iters;
+    }
+
+    /**
+     * Find the pixels of a frame which differ by more than threshold from
+     * one of their horizontal or vertical neighbours.  Pixels in the set
+     * differ from all pixels outside it.
+     *
+     * @param view
+     * @param frameIters row-major iteration counts
+     * @param threshold
+     * @return row-major indices of edge pixels, in ascending order
+     */
+    public static int[] findEdges(MandelView view, int[] frameIters,
+        int threshold) {
+        int w = view.width, h = view.height;
+        boolean[] edge = new boolean[frameIters.length];
+
+        int count = 0;
+        for (int y=0; y<h; y++) {
+            for (int x=0; x<w; x++) {
+                int i = y*w + x;
+                if (x + 1 < w && differ(frameIters[i], frameIters[i+1], threshold)) {
+                    edge[i] = true;
+                    edge[i+1] = true;
+                }
+                if (y + 1 < h && differ(frameIters[i], frameIters[i+w], threshold)) {
+                    edge[i] = true;
+                    edge[i+w] = true;
+                }
+            }
+        }
+
+        for (int i=0; i<edge.length; i++) {
+            if (edge[i])
+                count += 1;
+        }
+
+        int[] result = new int[count];
+        int n = 0;
+        for (int i=0; i<edge.length; i++) {
+            if (edge[i])
+                result[n++] = i;
+        }
+
+        return result;
+    }
+
+    private static boolean differ(int a, int b, int threshold) {
+        if (a < 0 || b < 0)
+            return (a < 0) != (b < 0);
+
+        return Math.abs(a - b) > threshold;
+    }
+
+    /**
+     * Determine whether these samples can be reused for a frame of view:
+     * they can if view is a pixel translation of the view from which they
+     * were computed, with the same maximum iteration count, and the
+     * samples of both are computed from global grid coordinates, as they
+     * are at float and double precision.
+     *
+     * @param view
+     * @param samplesPerAxis
+     * @return true if the samples of every pixel sampled here are exactly
+     * those of the corresponding pixel of view.
+     */
+    public boolean isReusableFor(MandelView view, int samplesPerAxis) {
+        return samplesPerAxis == this.samplesPerAxis
+            && view.precision == this.view.precision
+            && view.precision.compareTo(Precision.DOUBLE) <= 0
+            && view.isPixelTranslationOf(this.view);
+    }
+
+    /**
+     * @param pixel row-major index of a pixel in the frame
+     * @return index of pixel among the supersampled pixels, or a negative
+     * value if it was not supersampled.
+     */
+    int indexOf(int pixel) {
+        return Arrays.binarySearch(pixels, pixel);
+    }
+
+    /**
+     * @return number of supersampled pixels.
+     */
+    public int getPixelCount() {
+        return pixels.length;
+    }
+
+    /**
+     * Replace the colours of the supersampled pixels of a coloured frame
+     * by the average colours of their samples.
+     *
+     * @param colourModel
+     * @param rgb row-major packed RGB colours of the frame
+     */
+    public void fillRGB(MandelColourModel colourModel, int[] rgb) {
+        int n = samplesPerAxis*samplesPerAxis;
+
+        for (int k=0; k<pixels.length; k++) {
+            int r = 0, g = 0, b = 0;
+            for (int s=k*n; s<(k+1)*n; s++) {
+                int colour = colourModel.iterToRGB(iters[s]);
+                r += (colour >> 16) & 0xff;
+                g += (colour >> 8) & 0xff;
+                b += colour & 0xff;
+            }
+
+            rgb[pixels[k]] = 0xff000000 | ((r + n/2)/n << 16)
+                | ((g + n/2)/n << 8) | (b + n/2)/n;
+        }
+    }
+}
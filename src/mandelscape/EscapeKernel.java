@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+/**
+ * Escape-time iteration for the Mandelbrot set.  The iteration works on
+ * primitive doubles only, so that nothing is allocated in the inner loop.
+ *
+ * Since points inside the set always cost the full maxIter iterations,
+ * the kernel first rejects points in the main cardioid and the period-2
+ * bulb analytically, and then watches the orbit for exact repetition using
+ * Brent's cycle detection so that it can stop as soon as z becomes
+ * periodic.  Neither test changes the result: a point found to be in a
+ * cycle can never escape.
+ *
+ * @author agent <agent@local>
+ */
+public final class EscapeKernel {
+
+    /**
+     * Squared modulus of z beyond which the orbit is considered to have
+     * escaped.
+     */
+    public static final double ESCAPE_RADIUS2 = 10.0;
+
+    /**
+     * Identifies results produced by this kernel in caches.
+     */
+    public static final String KERNEL_ID = "double";
+
+    /**
+     * Returned by resumeEscapeIters() for points proven to lie in the set.
+     */
+    public static final int INTERIOR = -2;
+
+    /**
+     * Iteration at which the orbit is first saved for cycle detection.
+     */
+    private static final int FIRST_CHECKPOINT = 8;
+
+    private static final RowKernel ROW_KERNEL = loadRowKernel();
+
+    private EscapeKernel() { }
+
+    /**
+     * Obtain the fastest available kernel for batches of points.  This is
+     * the Vector API kernel if the JVM was started with
+     * --add-modules jdk.incubator.vector, unless the mandelscape.simd
+     * system property is set to false, and a scalar kernel otherwise.
+     *
+     * @return row kernel, chosen once at startup
+     */
+    public static RowKernel getRowKernel() {
+        return ROW_KERNEL;
+    }
+
+    private static RowKernel loadRowKernel() {
+        if (Boolean.parseBoolean(System.getProperty("mandelscape.simd", "true"))) {
+            try {
+                return (RowKernel)Class.forName("mandelscape.VectorRowKernel")
+                    .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException ex) {
+                // Not compiled in, fall back to the scalar kernel
+            } catch (LinkageError ex) {
+                // jdk.incubator.vector module not present
+            }
+        }
+
+        return new ScalarRowKernel();
+    }
+
+    /**
+     * Test whether c lies in the main cardioid or the period-2 bulb, both
+     * of which are entirely contained in the Mandelbrot set.
+     *
+     * @param cr real part of c
+     * @param ci imaginary part of c
+     * @return true if c is known to be in the set
+     */
+    public static boolean isInMainComponents(double cr, double ci) {
+        double ci2 = ci*ci;
+
+        // Main cardioid
+        double xq = cr - 0.25;
+        double q = xq*xq + ci2;
+        if (q*(q + xq) <= 0.25*ci2)
+            return true;
+
+        // Period-2 bulb
+        double xb = cr + 1.0;
+        return xb*xb + ci2 <= 0.0625;
+    }
+
+    /**
+     * Iterate z_{n+1} = z_{n}^2 + c to determine whether complex number c
+     * is in the Mandelbrot set or not.  (Values of c which remain bounded
+     * after an infinite number of iterations are in the set, all others
+     * are not.  We use a finite number of iterations to approximately
+     * determine membership.)
+     *
+     * This function returns the number of iterations taken to escape the
+     * boundary |z|^2=ESCAPE_RADIUS2, or -1 if z remained bounded for
+     * maxIter iterations.
+     *
+     * @param cr real part of c
+     * @param ci imaginary part of c
+     * @param maxIter
+     * @return escape iteration count, or -1
+     */
+    public static int getEscapeIters(double cr, double ci, int maxIter) {
+        if (isInMainComponents(cr, ci))
+            return -1;
+
+        double zr = 0.0, zi = 0.0;
+        double zr2 = 0.0, zi2 = 0.0;
+
+        // Orbit point saved for cycle detection
+        double savedZr = 0.0, savedZi = 0.0;
+        int checkpoint = FIRST_CHECKPOINT;
+
+        for (int i=0; i<maxIter; i++) {
+
+            // Update z:
+            zi = 2.0*zr*zi + ci;
+            zr = zr2 - zi2 + cr;
+
+            // Check for boundary escape
+            zr2 = zr*zr;
+            zi2 = zi*zi;
+            if (zr2 + zi2 > ESCAPE_RADIUS2)
+                return i;
+
+            // Check for periodic orbit, saving z at doubling intervals
+            if (zr == savedZr && zi == savedZi)
+                return -1;
+
+            if (i == checkpoint) {
+                savedZr = zr;
+                savedZi = zi;
+                checkpoint <<= 1;
+            }
+        }
+
+        // No boundary escape within chosen number of iterations.
+        return -1;
+    }
+
+    /**
+     * Continue the iteration for c from the value z reached after iterDone
+     * iterations, up to a total of maxIter iterations.  Iterating from
+     * z=0 with iterDone=0 is equivalent to getEscapeIters(), except that
+     * points proven to lie in the set are reported as INTERIOR rather
+     * than -1.
+     *
+     * @param cr real part of c
+     * @param ci imaginary part of c
+     * @param z two-element array holding z on entry and the final z on exit
+     * @param iterDone number of iterations already performed
+     * @param maxIter
+     * @return escape iteration count, -1 if z remained bounded, or INTERIOR
+     */
+    public static int resumeEscapeIters(double cr, double ci, double[] z,
+        int iterDone, int maxIter) {
+        if (isInMainComponents(cr, ci))
+            return INTERIOR;
+
+        double zr = z[0], zi = z[1];
+        double zr2 = zr*zr, zi2 = zi*zi;
+
+        double savedZr = zr, savedZi = zi;
+        int checkpoint = iterDone + FIRST_CHECKPOINT;
+        int result = -1;
+
+        for (int i=iterDone; i<maxIter; i++) {
+            zi = 2.0*zr*zi + ci;
+            zr = zr2 - zi2 + cr;
+
+            zr2 = zr*zr;
+            zi2 = zi*zi;
+            if (zr2 + zi2 > ESCAPE_RADIUS2) {
+                result = i;
+                break;
+            }
+
+            if (zr == savedZr && zi == savedZi) {
+                result = INTERIOR;
+                break;
+            }
+
+            if (i == checkpoint) {
+                savedZr = zr;
+                savedZi = zi;
+                checkpoint = iterDone + 2*(checkpoint - iterDone);
+            }
+        }
+
+        z[0] = zr;
+        z[1] = zi;
+        return result;
+    }
+
+    /**
+     * Convenience form of getEscapeIters() for callers outside the
+     * rendering loop.
+     *
+     * @param c
+     * @param maxIter
+     * @return escape iteration count, or -1
+     */
+    public static int getEscapeIters(CDouble c, int maxIter) {
+        return getEscapeIters(c.real, c.imag, maxIter);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+/**
+ * Single precision version of EscapeKernel, for shallow views in which
+ * float coordinates still resolve adjacent pixels.
+ *
+ * @author agent <agent@local>
+ */
+public final class FloatKernel {
+
+    private static final float ESCAPE_RADIUS2 =
+        (float)EscapeKernel.ESCAPE_RADIUS2;
+
+    /**
+     * Iteration at which the orbit is first saved for cycle detection.
+     */
+    private static final int FIRST_CHECKPOINT = 8;
+
+    private FloatKernel() { }
+
+    /**
+     * Single precision equivalent of EscapeKernel.getEscapeIters().
+     *
+     * @param cr real part of c
+     * @param ci imaginary part of c
+     * @param maxIter
+     * @return escape iteration count, or -1
+     */
+    public static int getEscapeIters(float cr, float ci, int maxIter) {
+        if (EscapeKernel.isInMainComponents(cr, ci))
+            return -1;
+
+        float zr = 0.0f, zi = 0.0f;
+        float zr2 = 0.0f, zi2 = 0.0f;
+
+        float savedZr = 0.0f, savedZi = 0.0f;
+        int checkpoint = FIRST_CHECKPOINT;
+
+        for (int i=0; i<maxIter; i++) {
+            zi = 2.0f*zr*zi + ci;
+            zr = zr2 - zi2 + cr;
+
+            zr2 = zr*zr;
+            zi2 = zi*zi;
+            if (zr2 + zi2 > ESCAPE_RADIUS2)
+                return i;
+
+            if (zr == savedZr && zi == savedZi)
+                return -1;
+
+            if (i == checkpoint) {
+                savedZr = zr;
+                savedZi = zi;
+                checkpoint <<= 1;
+            }
+        }
+
+        return -1;
+    }
+}
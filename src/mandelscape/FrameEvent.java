@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning one stage (compute, colour or paint) of
+ * the production of a frame.
+ *
+ * @author agent <agent@local>
+ */
+@Name("mandelscape.Frame")
+@Label("Frame Stage")
+@Category("Mandelscape")
+@Description("Computation, colouring or painting of a frame")
+@StackTrace(false)
+class FrameEvent extends jdk.jfr.Event {
+
+    static final String COMPUTE = "compute", COLOUR = "colour", PAINT = "paint";
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Precision")
+    String precision;
+
+    @Label("Iterations")
+    long iterations;
+
+    @Label("Pixels at maxIter")
+    long maxIterPixels;
+
+    /**
+     * Start time of the stage, kept for the metrics whether or not the
+     * event is recorded.
+     */
+    transient long startNanos;
+
+    /**
+     * @return new event for a stage beginning now.
+     */
+    static FrameEvent start() {
+        FrameEvent event = new FrameEvent();
+        event.startNanos = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * End the stage.
+     *
+     * @return duration of the stage in ns.
+     */
+    long finish() {
+        end();
+        return System.nanoTime() - startNanos;
+    }
+}
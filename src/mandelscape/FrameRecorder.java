@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects what is learnt about the pixels of a frame while it is being
+ * computed, so that its ResumeState can be built without repeating any
+ * work.  For each pixel still bounded after the iterations it was given,
+ * the recorder holds its sample point, the number of iterations performed
+ * and the value of z they reached.  Pixels proven to lie in the set are
+ * recorded with a z of NaN and are never iterated again.  Pixels with a
+ * count of -1 which are not recorded at all, such as those filled in by
+ * rectangle subdivision, start again from z=0 at their sample point in
+ * the frame's view.
+ *
+ * The recorder also counts the iterations actually performed for the
+ * frame, so that pixels copied from the cache, an earlier frame or a
+ * resumed state are not counted as work.
+ *
+ * Render tasks gather pixels into a Segment of their own and hand it
+ * over with add(), which may be called from any thread.
+ *
+ * @author agent <agent@local>
+ */
+final class FrameRecorder {
+
+    private final List<Segment> segments = new ArrayList<Segment>();
+    private long iterations = 0, maxIterPixels = 0;
+
+    /**
+     * Add the pixels gathered in a segment.
+     *
+     * @param segment
+     */
+    synchronized void add(Segment segment) {
+        iterations += segment.iterations;
+        maxIterPixels += segment.maxIterPixels;
+        if (segment.count > 0)
+            segments.add(segment);
+    }
+
+    /**
+     * @return iterations performed for pixels which escaped.
+     */
+    synchronized long getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return number of pixels iterated without escaping.
+     */
+    synchronized long getMaxIterPixels() {
+        return maxIterPixels;
+    }
+
+    /**
+     * Add the pixels of a state whose frame has been translated by
+     * (shiftX, shiftY) pixels, so that pixel (x,y) of the original becomes
+     * pixel (x+shiftX, y+shiftY).  Pixels moved outside the frame are
+     * dropped.
+     *
+     * @param base state of the original frame
+     * @param shiftX horizontal translation in pixels
+     * @param shiftY vertical translation in pixels
+     */
+    void addTranslated(ResumeState base, int shiftX, int shiftY) {
+        int w = base.view.width;
+        int h = base.view.height;
+        boolean[] unfinished = new boolean[w*h];
+        Segment segment = new Segment();
+
+        for (int k=0; k<base.pixels.length; k++) {
+            int pixel = base.pixels[k];
+            unfinished[pixel] = true;
+
+            int x = pixel % w + shiftX, y = pixel / w + shiftY;
+            if (x >= 0 && x < w && y >= 0 && y < h)
+                segment.add(y*w + x, base.cr[k], base.ci[k], base.zr[k],
+                    base.zi[k], base.iterDone[k]);
+        }
+
+        // Bounded pixels which the state does not list are interior
+        for (int pixel=0; pixel<w*h; pixel++) {
+            if (base.knownIters[pixel] >= 0 || unfinished[pixel])
+                continue;
+
+            int x = pixel % w + shiftX, y = pixel / w + shiftY;
+            if (x >= 0 && x < w && y >= 0 && y < h)
+                segment.addInterior(y*w + x);
+        }
+
+        add(segment);
+    }
+
+    /**
+     * Build the resumable state of the completed frame.
+     *
+     * @param view view from which the frame was computed
+     * @param iters row-major iteration counts of the frame
+     * @return new state
+     */
+    synchronized ResumeState buildResumeState(MandelView view, int[] iters) {
+        boolean[] seen = new boolean[iters.length];
+        int total = 0;
+        for (Segment segment : segments)
+            total += segment.count;
+        for (int i=0; i<iters.length; i++) {
+            if (iters[i] < 0)
+                total += 1;
+        }
+
+        int[] pixels = new int[total];
+        int[] iterDone = new int[total];
+        double[] cr = new double[total];
+        double[] ci = new double[total];
+        double[] zr = new double[total];
+        double[] zi = new double[total];
+
+        int n = 0;
+        for (Segment segment : segments) {
+            for (int k=0; k<segment.count; k++) {
+                int pixel = segment.pixels[k];
+                if (iters[pixel] >= 0 || seen[pixel])
+                    continue;
+
+                seen[pixel] = true;
+                if (Double.isNaN(segment.zr[k]))
+                    continue;
+
+                pixels[n] = pixel;
+                iterDone[n] = segment.iterDone[k];
+                cr[n] = segment.cr[k];
+                ci[n] = segment.ci[k];
+                zr[n] = segment.zr[k];
+                zi[n] = segment.zi[k];
+                n += 1;
+            }
+        }
+
+        for (int pixel=0; pixel<iters.length; pixel++) {
+            if (iters[pixel] >= 0 || seen[pixel])
+                continue;
+
+            int x = pixel % view.width, y = pixel / view.width;
+            pixels[n] = pixel;
+            cr[n] = view.getRealJittered(x, y, 0.1);
+            ci[n] = view.getImagJittered(x, y, 0.1);
+            n += 1;
+        }
+
+        return new ResumeState(view, iters, Arrays.copyOf(pixels, n),
+            Arrays.copyOf(iterDone, n), Arrays.copyOf(cr, n),
+            Arrays.copyOf(ci, n), Arrays.copyOf(zr, n), Arrays.copyOf(zi, n));
+    }
+
+    /**
+     * Growable list of unfinished pixels, filled by a single thread.
+     */
+    static final class Segment {
+
+        int count = 0;
+        long iterations = 0, maxIterPixels = 0;
+        int[] pixels = new int[16];
+        int[] iterDone = new int[16];
+        double[] cr = new double[16], ci = new double[16];
+        double[] zr = new double[16], zi = new double[16];
+
+        /**
+         * Record an unfinished pixel.
+         *
+         * @param pixel row-major index of the pixel in the frame
+         * @param cr real part of the pixel's sample point
+         * @param ci imaginary part of the pixel's sample point
+         * @param zr real part of z after iterDone iterations
+         * @param zi imaginary part of z after iterDone iterations
+         * @param iterDone number of iterations performed
+         */
+        void add(int pixel, double cr, double ci, double zr, double zi,
+            int iterDone) {
+            if (count == pixels.length) {
+                int size = 2*count;
+                pixels = Arrays.copyOf(pixels, size);
+                this.iterDone = Arrays.copyOf(this.iterDone, size);
+                this.cr = Arrays.copyOf(this.cr, size);
+                this.ci = Arrays.copyOf(this.ci, size);
+                this.zr = Arrays.copyOf(this.zr, size);
+                this.zi = Arrays.copyOf(this.zi, size);
+            }
+
+            pixels[count] = pixel;
+            this.iterDone[count] = iterDone;
+            this.cr[count] = cr;
+            this.ci[count] = ci;
+            this.zr[count] = zr;
+            this.zi[count] = zi;
+            count += 1;
+        }
+
+        /**
+         * Count the iterations performed for a pixel.
+         *
+         * @param iter escape iteration count, or a negative value if the
+         * pixel did not escape
+         * @param iterDone number of iterations performed earlier
+         */
+        void count(int iter, int iterDone) {
+            if (iter < 0)
+                maxIterPixels += 1;
+            else
+                iterations += iter + 1 - iterDone;
+        }
+
+        /**
+         * Record a pixel proven to lie in the set.
+         *
+         * @param pixel row-major index of the pixel in the frame
+         */
+        void addInterior(int pixel) {
+            add(pixel, Double.NaN, Double.NaN, Double.NaN, Double.NaN, 0);
+        }
+    }
+}
@@ -27,12 +27,19 @@ import java.util.List;
  * mapping to return to the same colour. The offset adjust the particular colour
  * that a given iteration count will map to.
  *
+ * Since the mapping is periodic, it is tabulated as a palette of packed
+ * ARGB values, one for each iteration count in [0, period).  The palette
+ * is rebuilt only when the period or offset changes.
+ *
  * @author Tim Vaughan <tgvaughan@gmail.com>
  */
 public abstract class MandelColourModel {
 
     int period, offset;
 
+    private volatile int[] palette;
+    private volatile int interiorRGB;
+
     private final List<ColourModelChangeListener> listeners =
         new ArrayList<ColourModelChangeListener>();
 
@@ -45,6 +52,7 @@ public abstract class MandelColourModel {
 
     public void setPeriod(int period) {
         this.period = period;
+        palette = null;
 
         fireModelChangedEvent();
     }
@@ -55,12 +63,71 @@ public abstract class MandelColourModel {
 
     public void setOffset(int offset) {
         this.offset = offset;
+        palette = null;
 
         fireModelChangedEvent();
     }
 
     public abstract Color iterToColor(int iter);
+
+    /**
+     * Obtain the palette of packed ARGB colours for iteration counts
+     * 0 to period-1.  The colour of count iter is palette[iter % period].
+     * The returned array must not be modified.
+     *
+     * @return palette
+     */
+    public int[] getPalette() {
+        int[] result = palette;
+        if (result == null) {
+            result = new int[Math.max(period, 1)];
+            for (int i=0; i<result.length; i++)
+                result[i] = iterToColor(i).getRGB();
+
+            interiorRGB = iterToColor(-1).getRGB();
+            palette = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return packed ARGB colour used for points in the set.
+     */
+    public int getInteriorRGB() {
+        getPalette();
+        return interiorRGB;
+    }
+
+    /**
+     * Look up the packed ARGB colour of an iteration count in the palette.
+     *
+     * @param iter iteration count, or -1 for points in the set
+     * @return packed ARGB colour
+     */
+    public int iterToRGB(int iter) {
+        int[] pal = getPalette();
+        return iter < 0 ? interiorRGB : pal[iter % pal.length];
+    }
     
+    /**
+     * Colour an array of iteration counts.
+     *
+     * @param iters iteration counts, -1 for points in the set
+     * @param rgb destination for packed ARGB colours, at least as long
+     * as iters
+     */
+    public void fillRGB(int[] iters, int[] rgb) {
+        int[] pal = getPalette();
+        int period = pal.length;
+        int interior = interiorRGB;
+
+        for (int i=0; i<iters.length; i++) {
+            int iter = iters[i];
+            rgb[i] = iter < 0 ? interior : pal[iter % period];
+        }
+    }
+
     /**
      * Add a listener for changes in the MandelModel.
      * 
@@ -17,8 +17,16 @@
 package mandelscape;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.math.BigDecimal;
+import java.math.MathContext;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.swing.SwingUtilities;
 
 /**
  * Model for the Mandelbrot set.  Contains the computed escape iteration
@@ -26,6 +34,17 @@ import java.util.List;
  * Provides methods for obtaining a rendered image of this region under
  * a chosen colour model.
  *
+ * Escape iteration counts are computed on a background render thread.  A
+ * call to update() supersedes any render still in progress, and listeners
+ * are notified on the Swing event dispatch thread once a frame is ready.
+ * In progressive mode, coarse previews of the frame are published first.
+ *
+ * The region is stored as a centre, held to arbitrary precision, and an
+ * extent.  Each frame is computed using the cheapest Precision which
+ * resolves adjacent pixels: double for shallow views, then double-double,
+ * and finally perturbation around an arbitrary precision reference orbit.
+ * Float precision is only used if forced.
+ *
  * @author Tim Vaughan <tgvaughan@gmail.com>
  */
 public class MandelModel {
@@ -33,16 +52,82 @@ public class MandelModel {
     private final List<MandelModelChangeListener> listeners =
         new ArrayList<MandelModelChangeListener>();
 
-    final private double cr0Min = -2.5;
-    final private double cr0Max = 0.5;
-    final private double ci0Min = -1.25;
-    final private double ci0Max = 1.25;
+    final private BigDecimal cr0 = BigDecimal.valueOf(-1);
+    final private BigDecimal ci0 = BigDecimal.ZERO;
+    final private double spanReal0 = 3.0;
+    final private double spanImag0 = 2.5;
 
-    private double crMin, crMax, ciMin, ciMax;
+    private BigDecimal centreReal, centreImag;
+    private double spanReal, spanImag;
 
+    /**
+     * Row-major iteration counts of the displayed frame.
+     */
     private int [] iters;
     private int width, height;
 
+    /**
+     * Images into which getImage() colours frames, used alternately so that
+     * the image returned by the previous call is not overwritten while it
+     * may still be in use.
+     */
+    private final BufferedImage[] imageBuffers = new BufferedImage[2];
+    private int nextImageBuffer = 0;
+
+    /**
+     * View from which the currently displayed iteration counts were
+     * computed.  Null until the first frame has been rendered.
+     */
+    private MandelView frameView;
+    private boolean frameComplete = false;
+
+    /**
+     * Resumable iteration state of the displayed frame, or null if none
+     * has been recorded.
+     */
+    private ResumeState resumeState;
+
+    /**
+     * Spacing between computed pixels in the first pass of a progressive
+     * render.  Each subsequent pass halves this until every pixel is done.
+     */
+    private static final int COARSEST_STEP = 4;
+    private boolean progressive = true;
+    private boolean subdividing = false;
+    private TileCache tileCache = null;
+    private TileStore tileStore = null;
+    private Precision forcedPrecision = null;
+
+    /**
+     * Edge pixels of complete frames are supersampled on a grid of this
+     * many samples per side.  Pixels are edge pixels if their iteration
+     * counts differ from a neighbour's by more than EDGE_THRESHOLD.
+     */
+    private int antialiasing = 1;
+    private static final int EDGE_THRESHOLD = 1;
+    private EdgeSamples edgeSamples;
+
+    /**
+     * Edge samples of the most recent complete frames, newest first, whose
+     * samples are reused by later frames of translations of their views.
+     */
+    private final List<EdgeSamples> recentEdgeSamples =
+        new ArrayList<EdgeSamples>();
+    private static final int EDGE_SAMPLE_HISTORY = 4;
+
+    private final ExecutorService renderExecutor =
+        Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "Mandelscape render");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    private RenderTask currentTask;
+    private final RenderEngine engine = new RenderEngine();
+    private final RenderMetrics metrics = new RenderMetrics();
+
     /**
      * Create a new MandelModel with the specified initial maximum iteration
      * count, width and height.
@@ -56,12 +141,11 @@ public class MandelModel {
 
         this.width = width;
         this.height = height;
-        this.iters = new int[width*height];
 
-        this.crMin = cr0Min;
-        this.crMax = cr0Max;
-        this.ciMin = ci0Min;
-        this.ciMax = ci0Max;
+        this.centreReal = cr0;
+        this.centreImag = ci0;
+        this.spanReal = spanReal0;
+        this.spanImag = spanImag0;
     }
 
     /**
@@ -81,8 +165,10 @@ public class MandelModel {
     public void removeChangeListener(MandelModelChangeListener listener) {
         listeners.remove(listener);
     }
+
     /**
-     * Let any listeners know that the model has changed.
+     * Let any listeners know that the model has changed.  Always called
+     * on the event dispatch thread.
      */
     private void fireModelChangedEvent() {
         for (MandelModelChangeListener listener : listeners)
@@ -91,7 +177,9 @@ public class MandelModel {
 
     /**
      * Set the maximum number of iterations to perform when estimating
-     * boundary escape rate.
+     * boundary escape rate.  If the region is unchanged, raising the
+     * limit continues the iteration of pixels which had not yet escaped,
+     * and lowering it simply clamps the existing counts.
      * 
      * @param newMaxIter 
      */
@@ -101,14 +189,174 @@ public class MandelModel {
         update();
     }
 
+    /**
+     * Set the number of worker threads used to compute each frame.
+     *
+     * @param parallelism
+     */
+    public void setParallelism(int parallelism) {
+        engine.setParallelism(parallelism);
+    }
+
+    /**
+     * @return number of worker threads used to compute each frame.
+     */
+    public int getParallelism() {
+        return engine.getParallelism();
+    }
+
+    /**
+     * Choose whether frames are rendered progressively, publishing coarse
+     * previews at 1/16 and 1/4 of the full resolution before the full
+     * resolution frame.
+     *
+     * @param progressive
+     */
+    public void setProgressive(boolean progressive) {
+        this.progressive = progressive;
+    }
+
+    /**
+     * @return true if frames are rendered progressively.
+     */
+    public boolean isProgressive() {
+        return progressive;
+    }
+
+    /**
+     * Choose whether frames are rendered using Mariani-Silver rectangle
+     * subdivision rather than by computing every pixel.  Subdivided frames
+     * are always published in one piece, regardless of progressive mode.
+     *
+     * @param subdividing
+     */
+    public void setSubdividing(boolean subdividing) {
+        this.subdividing = subdividing;
+    }
+
+    /**
+     * @return true if frames are rendered using rectangle subdivision.
+     */
+    public boolean isSubdividing() {
+        return subdividing;
+    }
+
+    /**
+     * Set the cache from which frames are assembled, or null to compute
+     * every frame from scratch.  When a cache is in use, the view is
+     * snapped onto the cache's tile grid.  Tiles missing from the cache
+     * are computed according to the progressive and subdividing modes,
+     * so previews are still published while they are being computed.
+     *
+     * @param tileCache
+     */
+    public void setTileCache(TileCache tileCache) {
+        this.tileCache = tileCache;
+    }
+
+    /**
+     * @return tile cache in use, or null if there is none.
+     */
+    public TileCache getTileCache() {
+        return tileCache;
+    }
+
+    /**
+     * Set the persistent store which is checked for tiles missing from
+     * the tile cache, and to which newly computed tiles are written, or
+     * null to use none.  Like the tile cache, a store causes views to be
+     * snapped onto the tile grid.
+     *
+     * @param tileStore
+     */
+    public void setTileStore(TileStore tileStore) {
+        this.tileStore = tileStore;
+    }
+
+    /**
+     * @return tile store in use, or null if there is none.
+     */
+    public TileStore getTileStore() {
+        return tileStore;
+    }
+
+    /**
+     * Force every frame to be computed using the given precision, or pass
+     * null to choose the cheapest sufficient precision for each view.
+     * Forcing a precision which cannot resolve the view gives blocky or
+     * noisy frames, so this is mostly useful for comparing tiers.
+     *
+     * @param precision
+     */
+    public void setForcedPrecision(Precision precision) {
+        this.forcedPrecision = precision;
+    }
+
+    /**
+     * @return precision forced by setForcedPrecision(), or null.
+     */
+    public Precision getForcedPrecision() {
+        return forcedPrecision;
+    }
+
+    /**
+     * Choose the number of samples along each side of a pixel used to
+     * anti-alias edges once a frame is complete, or 1 to disable
+     * anti-aliasing.  Frames computed by perturbation are not
+     * anti-aliased.
+     *
+     * @param samplesPerAxis
+     */
+    public void setAntialiasing(int samplesPerAxis) {
+        this.antialiasing = Math.max(1, samplesPerAxis);
+    }
+
+    /**
+     * @return number of samples along each side of an anti-aliased pixel.
+     */
+    public int getAntialiasing() {
+        return antialiasing;
+    }
+
+    /**
+     * @return timings of the most recent frame.
+     */
+    public RenderMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return precision used to compute the displayed frame, or null if
+     * no frame has been rendered.
+     */
+    public Precision getFramePrecision() {
+        return frameView == null ? null : frameView.precision;
+    }
+
+    /**
+     * @return false if the displayed frame is a coarse preview which
+     * will be followed by a more detailed one.
+     */
+    public boolean isFrameComplete() {
+        return frameComplete;
+    }
+
+    /**
+     * @return row-major iteration counts of the displayed frame, which
+     * must not be modified.
+     */
+    int[] getFrameIters() {
+        return iters;
+    }
+
     /**
      * Reset zoom to default.
      */
     public void resetZoom() {
-        crMin = cr0Min;
-        crMax = cr0Max;
-        ciMin = ci0Min;
-        ciMax = ci0Max;
+        centreReal = cr0;
+        centreImag = ci0;
+        spanReal = spanReal0;
+        spanImag = spanImag0;
 
         update();
     }
@@ -122,7 +370,8 @@ public class MandelModel {
      * @param factor zoom factor: &lt;1 zooms out, &gt;1 zooms in.
      */
     public void zoom(int centrex, int centrey, double factor) {
-        zoom(getPoint(centrex, centrey), factor);
+        zoomAbout((centrex - 0.5*width)*spanReal/width,
+            (centrey - 0.5*height)*spanImag/height, factor);
     }
 
     /**
@@ -133,35 +382,44 @@ public class MandelModel {
      * @param factor zoom factor: &lt;1 zooms out, &gt;1 zooms in.
      */
     public void zoom(CDouble centre, double factor) {
-        double crMinPrime = crMin/factor - centre.real*(1.0/factor-1);
-        double crMaxPrime = crMinPrime + (crMax-crMin)/factor;
-        double ciMinPrime = ciMin/factor - centre.imag*(1.0/factor-1);
-        double ciMaxPrime = ciMinPrime + (ciMax-ciMin)/factor;
+        zoomAbout(centre.real - centreReal.doubleValue(),
+            centre.imag - centreImag.doubleValue(), factor);
+    }
 
-        crMin = crMinPrime;
-        crMax = crMaxPrime;
-        ciMin = ciMinPrime;
-        ciMax = ciMaxPrime;
+    /**
+     * Zoom in/out about the point at offset (dr, di) from the centre of
+     * the region.  Offsets rather than absolute coordinates are used so
+     * that no precision is lost at deep zoom levels.
+     *
+     * @param dr
+     * @param di
+     * @param factor zoom factor: &lt;1 zooms out, &gt;1 zooms in.
+     */
+    private void zoomAbout(double dr, double di, double factor) {
+        spanReal /= factor;
+        spanImag /= factor;
+
+        MathContext mc = MandelView.getMathContext(
+            Math.min(spanReal/width, spanImag/height));
+        centreReal = centreReal.add(new BigDecimal(dr*(1.0 - 1.0/factor)), mc);
+        centreImag = centreImag.add(new BigDecimal(di*(1.0 - 1.0/factor)), mc);
 
         update();
     }
 
     /**
-     * Shift view by chosen offset.
+     * Shift view by chosen offset.  Where possible, the next frame is
+     * obtained by translating the current one and computing only the
+     * newly exposed strips.
      * 
      * @param dx horizontal pixel offset
      * @param dy vertical pixel offset
      */
     public void pan(int dx, int dy) {
-        double crMinPrime = crMin - dx*(crMax-crMin)/width;
-        double crMaxPrime = crMax - dx*(crMax-crMin)/width;
-        double ciMinPrime = ciMin - dy*(ciMax-ciMin)/height;
-        double ciMaxPrime = ciMax - dy*(ciMax-ciMin)/height;
-
-        crMin = crMinPrime;
-        crMax = crMaxPrime;
-        ciMin = ciMinPrime;
-        ciMax = ciMaxPrime;
+        MathContext mc = MandelView.getMathContext(
+            Math.min(spanReal/width, spanImag/height));
+        centreReal = centreReal.subtract(new BigDecimal(dx*spanReal/width), mc);
+        centreImag = centreImag.subtract(new BigDecimal(dy*spanImag/height), mc);
 
         update();
     }
@@ -176,43 +434,10 @@ public class MandelModel {
     public void setDimension(int width, int height) {
         this.width = width;
         this.height = height;
-        iters = new int[width*height];
 
         update();
     }
 
-    /**
-     * Iterate z_{n+1} = z_{n}^2 + c to determine whether complex number c
-     * is in the Mandelbrot set or not.  (Values of c which remain bounded
-     * after an infinite number of iterations are in the set, all others
-     * are not.  We use a finite number of iterations to approximately
-     * determine membership.)
-     * 
-     * This function returns the number of iterations taken to escape the
-     * boundary |z|=1, or -1 if z remained bounded for maxIter iterations.
-     * 
-     * @param cr
-     * @param ci
-     * @return 
-     */
-    private int getEscapeIters(CDouble c) {
-
-        CDouble z = CDouble.ZERO;
-
-        for (int i=0; i<maxIter; i++) {
-
-            // Update z:
-            z = z.squared().add(c);
-
-            // Check for boundary escape
-            if (z.abs2() > 10.0)
-                return i;
-        }
-
-        // No boundary escape within chosen number of iterations.
-        return -1;
-    }
-
     /**
      * Get complex number associated with pixel grid coordinates (x,y).
      * 
@@ -221,13 +446,14 @@ public class MandelModel {
      * @return complex number
      */
     public CDouble getPoint(int x, int y) {
-        return new CDouble(crMin + x*(crMax-crMin)/width,
-            ciMin + y*(ciMax-ciMin)/height);
+        return new CDouble(
+            centreReal.doubleValue() + (x - 0.5*width)*spanReal/width,
+            centreImag.doubleValue() + (y - 0.5*height)*spanImag/height);
     }
 
     /**
      * Get complex number associated with pixel grid coordinates (x,y), but
-     * with a random jitter to avoid aliasing effects.
+     * with the same jitter as is used to render the current region.
      * 
      * @param x
      * @param y
@@ -235,44 +461,328 @@ public class MandelModel {
      * @return complex number
      */
     public CDouble getPointJittered(int x, int y, double mag) {
-        double dcr = (crMax-crMin)/((double)width);
-        double dci = (ciMax-ciMin)/((double)height);
+        MandelView view = new MandelView(centreReal, centreImag,
+            spanReal, spanImag, width, height, maxIter);
 
-        return new CDouble(crMin + dcr*(x + mag*(Math.random()-0.5)),
-            ciMin + dci*(y + mag*(Math.random()-0.5)));
+        return view.getPointJittered(x, y, mag);
     }
 
     /**
      * Construct BufferedImage view of Mandelbrot set using chosen colour model.
+     * The image reflects the most recently completed frame, which may lag
+     * behind the current view while a render is in progress.
+     *
+     * Two images are reused alternately, and colours are written directly
+     * into their pixel arrays, so the returned image is only valid until
+     * the next-but-one call.  Callers which need to keep it for longer
+     * should copy it.  Must be called on the event dispatch thread.
      *
      * @param colourModel
      * @return Image for painting on screen or writing to disk.
      */
     public BufferedImage getImage(MandelColourModel colourModel) {
-        BufferedImage image = new BufferedImage(width, height,
-            BufferedImage.TYPE_INT_RGB);
-
-        for (int x=0; x<width; x++) {
-            for (int y=0; y<height; y++) {
-                image.setRGB(x, y, colourModel.iterToColor(iters[x*height + y]).getRGB());
-            }
+        int imageWidth = Math.max(frameView == null ? width : frameView.width, 1);
+        int imageHeight = Math.max(frameView == null ? height : frameView.height, 1);
+
+        BufferedImage image = imageBuffers[nextImageBuffer];
+        if (image == null || image.getWidth() != imageWidth
+            || image.getHeight() != imageHeight) {
+            image = new BufferedImage(imageWidth, imageHeight,
+                BufferedImage.TYPE_INT_RGB);
+            imageBuffers[nextImageBuffer] = image;
+        }
+        nextImageBuffer = 1 - nextImageBuffer;
+
+        FrameEvent event = FrameEvent.start();
+        int[] rgb = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+        if (frameView == null || iters.length == 0)
+            Arrays.fill(rgb, 0);
+        else {
+            colourModel.fillRGB(iters, rgb);
+            if (edgeSamples != null)
+                edgeSamples.fillRGB(colourModel, rgb);
         }
+        metrics.recordColour(imageWidth, imageHeight, event);
 
         return image;
     }
 
     /**
-     * Compute boundary escape iteration counts for each pixel in region.
+     * Request that boundary escape iteration counts be computed for each
+     * pixel in the current region.  The work is handed to the background
+     * render thread and any render still in progress is abandoned.
      */
     public void update() {
-        for (int x=0; x<width; x++) {
-            for (int y=0; y<height; y++) {
+        if (currentTask != null)
+            currentTask.cancel();
+
+        MandelView view = new MandelView(centreReal, centreImag,
+            spanReal, spanImag, width, height, maxIter, forcedPrecision);
+
+        // Frames assembled from tiles are computed on the tile grid, so
+        // work with the snapped view throughout
+        if ((tileCache != null || tileStore != null)
+            && view.precision.compareTo(Precision.DOUBLE) <= 0)
+            view = TileCache.getSnappedView(view);
+
+        currentTask = new RenderTask(view, progressive, subdividing, tileCache,
+            tileStore, antialiasing);
+        currentTask.setRecentEdgeSamples(recentEdgeSamples);
+
+        // Published frames are never modified, so the latest complete one
+        // can be handed to the render thread for reuse, provided it was
+        // computed with the same precision.
+        if (frameView != null && frameComplete
+            && frameView.precision == view.precision)
+            currentTask.setBaseFrame(frameView, iters, resumeState);
+
+        renderExecutor.execute(currentTask);
+    }
 
-                CDouble c = getPointJittered(x, y, 0.1);
-                iters[x*height + y] = getEscapeIters(c);
-            }
+    /**
+     * Install a frame and notify listeners, provided no newer render has
+     * been requested in the meantime.  Must be called on the event
+     * dispatch thread.
+     *
+     * @param task task which produced the frame
+     * @param frameIters iteration counts computed by task
+     * @param complete false if frameIters is a coarse preview
+     * @param state resumable state of the frame, or null
+     * @param samples edge samples of the frame, or null
+     */
+    private void publishFrame(RenderTask task, int[] frameIters,
+        boolean complete, ResumeState state, EdgeSamples samples) {
+        if (task != currentTask)
+            return;
+
+        frameView = task.view;
+        iters = frameIters;
+        frameComplete = complete;
+        resumeState = state;
+        edgeSamples = samples;
+
+        if (samples != null) {
+            recentEdgeSamples.add(0, samples);
+            if (recentEdgeSamples.size() > EDGE_SAMPLE_HISTORY)
+                recentEdgeSamples.remove(EDGE_SAMPLE_HISTORY);
         }
 
         fireModelChangedEvent();
     }
+
+    /**
+     * Computes the iteration counts for a single view on the render thread.
+     */
+    private class RenderTask implements Runnable, Cancellable {
+
+        private final MandelView view;
+        private final boolean progressive, subdividing;
+        private final TileCache tileCache;
+        private final TileStore tileStore;
+        private final int antialiasing;
+        private MandelView baseView;
+        private int[] baseIters;
+        private ResumeState baseState;
+        private final List<EdgeSamples> recentEdgeSamples =
+            new ArrayList<EdgeSamples>();
+        private volatile boolean cancelled = false;
+
+        RenderTask(MandelView view, boolean progressive, boolean subdividing,
+            TileCache tileCache, TileStore tileStore, int antialiasing) {
+            this.view = view;
+            this.progressive = progressive;
+            this.subdividing = subdividing;
+            this.tileCache = tileCache;
+            this.tileStore = tileStore;
+            this.antialiasing = antialiasing;
+        }
+
+        /**
+         * Provide a previously completed frame which may be reused if this
+         * task's view is a translation of it or differs from it only in
+         * maximum iteration count.
+         *
+         * @param baseView
+         * @param baseIters
+         * @param baseState resumable state of the frame, or null
+         */
+        void setBaseFrame(MandelView baseView, int[] baseIters,
+            ResumeState baseState) {
+            this.baseView = baseView;
+            this.baseIters = baseIters;
+            this.baseState = baseState;
+        }
+
+        /**
+         * Provide the edge samples of recent frames, newest first, from
+         * which those of this task's frame may be taken.
+         *
+         * @param samples
+         */
+        void setRecentEdgeSamples(List<EdgeSamples> samples) {
+            recentEdgeSamples.addAll(samples);
+        }
+
+        /**
+         * @return the most recent edge samples which can be reused for
+         * this task's frame, or null if there are none.
+         */
+        private EdgeSamples getReusableEdgeSamples() {
+            for (EdgeSamples samples : recentEdgeSamples) {
+                if (samples.isReusableFor(view, antialiasing))
+                    return samples;
+            }
+
+            return null;
+        }
+
+        /**
+         * @return true if the frame can be obtained from the base frame's
+         * resumable state.
+         */
+        private boolean isResumable() {
+            // Resumed pixels are iterated in double precision
+            if (view.precision.compareTo(Precision.DOUBLE) > 0)
+                return false;
+
+            if (baseState != null)
+                return view.hasSameRegion(baseState.view);
+
+            return baseView != null && view.hasSameRegion(baseView)
+                && view.maxIter != baseView.maxIter;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled)
+                return;
+
+            FrameEvent event = FrameEvent.start();
+            FrameRecorder recorder = new FrameRecorder();
+            int[] frameIters;
+            ResumeState frameState = null;
+
+            if (isResumable()) {
+                ResumeState state = baseState != null ? baseState
+                    : ResumeState.fromFrame(baseView, baseIters);
+
+                if (view.maxIter <= state.getKnownMaxIter()) {
+                    frameIters = state.getClampedIters(view.maxIter);
+                    frameState = state;
+                } else {
+                    frameIters = new int[view.width*view.height];
+                    frameState = engine.renderResumed(view, frameIters,
+                        this, state, recorder);
+                }
+            } else {
+                frameIters = new int[view.width*view.height];
+                renderFrame(frameIters, recorder);
+
+                // Keep the unfinished pixels so that a later increase in
+                // maxIter can continue from where this frame stopped
+                if (!cancelled
+                    && view.precision.compareTo(Precision.DOUBLE) <= 0)
+                    frameState = recorder.buildResumeState(view, frameIters);
+            }
+
+            if (cancelled)
+                return;
+
+            metrics.recordCompute(view, recorder.getIterations(),
+                recorder.getMaxIterPixels(), event);
+            publish(frameIters, true, frameState, null);
+
+            // Refine the displayed frame by supersampling its edges
+            if (antialiasing > 1 && view.precision != Precision.PERTURBATION) {
+                EdgeSamples samples = engine.renderEdgeSamples(view,
+                    frameIters, this, antialiasing, EDGE_THRESHOLD,
+                    getReusableEdgeSamples());
+                if (samples != null && !cancelled)
+                    publish(frameIters, true, frameState, samples);
+            }
+        }
+
+        /**
+         * Compute a frame from scratch, or by translating the base frame.
+         * Views needing perturbation are always computed from scratch, and
+         * only float and double precision views use the tile cache and
+         * store.  Frames which use them are always assembled from tiles,
+         * even when they are translations of the base frame, so that the
+         * newly exposed pixels are cached and every frame of a region is
+         * identical however it was reached.
+         *
+         * @param frameIters destination array
+         * @param recorder recorder of unfinished pixels and iterations
+         */
+        private void renderFrame(int[] frameIters, FrameRecorder recorder) {
+            if (view.precision == Precision.PERTURBATION)
+                engine.renderPerturbed(view, frameIters, this, recorder);
+            else if ((tileCache != null || tileStore != null)
+                && view.precision.compareTo(Precision.DOUBLE) <= 0)
+                renderCached(frameIters, recorder);
+            else if (baseView != null && view.isPixelTranslationOf(baseView))
+                engine.renderShifted(view, frameIters, this, baseIters,
+                    view.getShiftX(baseView), view.getShiftY(baseView),
+                    baseState, recorder);
+            else if (subdividing)
+                engine.renderSubdivided(view, frameIters, this, recorder);
+            else if (progressive) {
+                for (int step=COARSEST_STEP; step>1; step /= 2) {
+                    engine.renderPass(view, frameIters, this, step,
+                        step < COARSEST_STEP, recorder);
+                    if (cancelled)
+                        return;
+
+                    // Publish a copy, as the next pass refines frameIters
+                    // in place while the preview is being displayed.
+                    publish(frameIters.clone(), false, null, null);
+                }
+                engine.renderPass(view, frameIters, this, 1, true, recorder);
+            } else
+                engine.render(view, frameIters, this, recorder);
+        }
+
+        /**
+         * Compute a frame from the tile cache and store.  Missing tiles
+         * are computed in the same way as uncached frames: by subdivision,
+         * or progressively with a preview published after each coarse pass.
+         *
+         * @param frameIters destination array
+         * @param recorder recorder of unfinished pixels and iterations
+         */
+        private void renderCached(final int[] frameIters,
+            FrameRecorder recorder) {
+            RenderEngine.PassListener listener = new RenderEngine.PassListener() {
+                @Override
+                public void passCompleted(int step) {
+                    if (!cancelled)
+                        publish(frameIters.clone(), false, null, null);
+                }
+            };
+
+            engine.renderCached(view, frameIters, this, tileCache, tileStore,
+                recorder, subdividing, progressive ? COARSEST_STEP : 1,
+                listener);
+        }
+
+        private void publish(final int[] frameIters, final boolean complete,
+            final ResumeState state, final EdgeSamples samples) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    publishFrame(RenderTask.this, frameIters, complete, state,
+                        samples);
+                }
+            });
+        }
+    }
 }
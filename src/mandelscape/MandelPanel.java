@@ -16,6 +16,9 @@
  */
 package mandelscape;
 
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.event.ComponentAdapter;
@@ -36,15 +39,37 @@ import javax.swing.JPanel;
  */
 public class MandelPanel extends JPanel {
 
+    /**
+     * Factor by which a single click or wheel step zooms in.  Zooming out
+     * uses the reciprocal so that the two cancel exactly, allowing cached
+     * tiles to be reused when returning to a previous view.
+     */
+    private static final double ZOOM_FACTOR = 1.2;
+
     private final MandelModel model;
     private MandelColourModel colourModel;
     private ColourModelChangeListener colourChangeListener;
 
+    /**
+     * Coloured image of the current frame, rebuilt only when the model's
+     * iteration data or the colour model changes.  Versions are bumped by
+     * the change listeners and compared against those the image was built
+     * from.
+     */
+    private BufferedImage frameImage;
+    private int frameImageVersion = -1;
+    private int version = 0;
+
+    private boolean showMetrics = false;
+    private static final Font HUD_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color HUD_BACKGROUND = new Color(0, 0, 0, 160);
+
     public MandelPanel(final MandelModel model, MandelColourModel colourModel) {
         this.model = model; 
         model.addChangeListener(new MandelModelChangeListener() {
             @Override
             public void modelHasChanged() {
+                version += 1;
                 repaint();
             }
         });
@@ -53,6 +78,7 @@ public class MandelPanel extends JPanel {
         colourChangeListener = new ColourModelChangeListener() {
             @Override
             public void modelHasChanged() {
+                version += 1;
                 repaint();
             }
         };
@@ -77,11 +103,11 @@ public class MandelPanel extends JPanel {
                 if (e.getWheelRotation()>0) {
                     // Scroll down (zoom out)
 
-                    model.zoom(point.x, point.y, 0.8);
+                    model.zoom(point.x, point.y, 1.0/ZOOM_FACTOR);
                 } else {
                     // Scroll up (zoom in)
 
-                    model.zoom(point.x, point.y, 1.2);
+                    model.zoom(point.x, point.y, ZOOM_FACTOR);
                 }
             }
         });
@@ -98,7 +124,7 @@ public class MandelPanel extends JPanel {
                         if (e.getClickCount()==1) {
                             // Single left click: Zoom in
                             Point point = e.getPoint();
-                            model.zoom(point.x, point.y, 1.2);
+                            model.zoom(point.x, point.y, ZOOM_FACTOR);
                         } else {
                             // Double right click: Reset zoom
                             model.resetZoom();
@@ -109,7 +135,7 @@ public class MandelPanel extends JPanel {
                         if (e.getClickCount() == 1) {
                             // Single left click: Zoom in
                             Point point = e.getPoint();
-                            model.zoom(point.x, point.y, 0.8);
+                            model.zoom(point.x, point.y, 1.0/ZOOM_FACTOR);
                         }
                         break;
 
@@ -144,6 +170,7 @@ public class MandelPanel extends JPanel {
         this.colourModel.removeChangeListener(colourChangeListener);
         this.colourModel = colourModel;
         this.colourModel.addChangeListener(colourChangeListener);
+        version += 1;
         repaint();
     }
 
@@ -151,12 +178,79 @@ public class MandelPanel extends JPanel {
         return this.colourModel;
     }
 
+    /**
+     * Obtain the coloured image of the current frame, recolouring only if
+     * the frame or colour model has changed since it was last built.
+     *
+     * @return image, shared with the panel and not to be modified
+     */
     public BufferedImage getImage() {
-        return model.getImage(colourModel);
+        if (frameImage == null || frameImageVersion != version) {
+            frameImage = model.getImage(colourModel);
+            frameImageVersion = version;
+        }
+
+        return frameImage;
+    }
+
+    /**
+     * Choose whether the metrics of the latest frame are drawn over it.
+     *
+     * @param showMetrics
+     */
+    public void setShowMetrics(boolean showMetrics) {
+        this.showMetrics = showMetrics;
+        repaint();
+    }
+
+    /**
+     * @return true if frame metrics are drawn over the frame.
+     */
+    public boolean isShowMetrics() {
+        return showMetrics;
     }
 
     @Override
     protected void paintComponent(Graphics g) {
-        g.drawImage(model.getImage(colourModel), 0, 0, null);
+        BufferedImage image = getImage();
+
+        FrameEvent event = FrameEvent.start();
+        g.drawImage(image, 0, 0, null);
+        model.getMetrics().recordPaint(image.getWidth(), image.getHeight(),
+            event);
+
+        if (showMetrics)
+            paintMetrics(g);
+    }
+
+    /**
+     * Draw the metrics of the latest frame in the top left corner.
+     *
+     * @param g
+     */
+    private void paintMetrics(Graphics g) {
+        RenderMetrics metrics = model.getMetrics();
+        String[] lines = {
+            String.format("compute %.1f ms", metrics.getComputeMillis()),
+            String.format("colour  %.1f ms", metrics.getColourMillis()),
+            String.format("paint   %.1f ms", metrics.getPaintMillis()),
+            String.format("%,d iterations", metrics.getIterations()),
+            String.format("%.3g iterations/s", metrics.getIterationsPerSecond()),
+            String.format("%,d pixels at maxIter", metrics.getMaxIterPixels()),
+            "precision " + model.getFramePrecision()
+        };
+
+        g.setFont(HUD_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        int lineHeight = fm.getHeight();
+        int width = 0;
+        for (String line : lines)
+            width = Math.max(width, fm.stringWidth(line));
+
+        g.setColor(HUD_BACKGROUND);
+        g.fillRect(4, 4, width + 8, lines.length*lineHeight + 8);
+        g.setColor(Color.WHITE);
+        for (int i=0; i<lines.length; i++)
+            g.drawString(lines[i], 8, 8 + i*lineHeight + fm.getAscent());
     }
 }
@@ -0,0 +1,518 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Immutable snapshot of the region of the complex plane being viewed,
+ * the pixel grid it is mapped onto and the maximum iteration count.
+ * Render jobs work from one of these so that the live MandelModel can
+ * keep changing while a frame is being computed.
+ *
+ * The centre of the region is held to arbitrary precision so that views
+ * can be deeper than double precision allows.  The double bounds are
+ * only accurate to within an ulp of the centre.
+ *
+ * @author agent <agent@local>
+ */
+public class MandelView {
+
+    public final double crMin, crMax, ciMin, ciMax;
+    public final int width, height;
+    public final int maxIter;
+
+    /**
+     * Extent of a single pixel in the real and imaginary directions.
+     */
+    public final double pixelWidth, pixelHeight;
+
+    /**
+     * Centre of the region to arbitrary precision.
+     */
+    public final BigDecimal centreReal, centreImag;
+
+    /**
+     * Centre of the region split into high and low doubles, for use in
+     * double-double arithmetic.
+     */
+    public final double centreRealHi, centreRealLo, centreImagHi, centreImagLo;
+
+    /**
+     * Arithmetic used to compute the view.
+     */
+    public final Precision precision;
+
+    /**
+     * Seed of the sample jitter, derived from the pixel scale only.
+     */
+    public final long seed;
+
+    /**
+     * Global grid coordinates of the top-left pixel: its position in
+     * whole pixels from the origin of the complex plane (modulo 2^64),
+     * and the remaining fraction of a pixel.  Jitter is a function of
+     * these coordinates rather than of the pixel's position in the view,
+     * and float and double sample points are computed from them, so a
+     * point sampled by one view is sampled identically by every
+     * translation of it.
+     */
+    private final long originX, originY;
+    private final double fractionX, fractionY;
+
+    /**
+     * Number of bits of the fractional part of the grid origin which are
+     * kept, so that it is unaffected by rounding of translated centres.
+     */
+    private static final int FRACTION_BITS = 20;
+
+    /**
+     * Number of ulps of the largest coordinate that a pixel must span for
+     * a given precision to resolve the view.
+     */
+    private static final double MIN_PIXEL_ULPS = 1000;
+
+    /**
+     * Number of decimal digits carried beyond those needed to resolve a
+     * pixel in arbitrary precision arithmetic.
+     */
+    private static final int GUARD_DIGITS = 20;
+
+    /**
+     * Create a new view of the given region, pixel grid and maximum
+     * iteration count.
+     *
+     * @param crMin
+     * @param crMax
+     * @param ciMin
+     * @param ciMax
+     * @param width
+     * @param height
+     * @param maxIter
+     */
+    public MandelView(double crMin, double crMax, double ciMin, double ciMax,
+        int width, int height, int maxIter) {
+        this.crMin = crMin;
+        this.crMax = crMax;
+        this.ciMin = ciMin;
+        this.ciMax = ciMax;
+        this.width = width;
+        this.height = height;
+        this.maxIter = maxIter;
+
+        this.pixelWidth = (crMax-crMin)/((double)width);
+        this.pixelHeight = (ciMax-ciMin)/((double)height);
+
+        this.centreReal = new BigDecimal(0.5*(crMin + crMax));
+        this.centreImag = new BigDecimal(0.5*(ciMin + ciMax));
+        this.centreRealHi = centreReal.doubleValue();
+        this.centreRealLo = 0.0;
+        this.centreImagHi = centreImag.doubleValue();
+        this.centreImagLo = 0.0;
+
+        this.precision = getRequiredPrecision();
+        this.seed = computeSeed();
+
+        BigInteger positionX = getGridPosition(centreReal, pixelWidth, width);
+        BigInteger positionY = getGridPosition(centreImag, pixelHeight, height);
+        this.originX = positionX.shiftRight(FRACTION_BITS).longValue();
+        this.originY = positionY.shiftRight(FRACTION_BITS).longValue();
+        this.fractionX = getFraction(positionX);
+        this.fractionY = getFraction(positionY);
+    }
+
+    /**
+     * Create a new view of the region with the given centre and extent,
+     * computed using the cheapest precision which resolves it.
+     *
+     * @param centreReal
+     * @param centreImag
+     * @param spanReal extent of the region along the real axis
+     * @param spanImag extent of the region along the imaginary axis
+     * @param width
+     * @param height
+     * @param maxIter
+     */
+    public MandelView(BigDecimal centreReal, BigDecimal centreImag,
+        double spanReal, double spanImag, int width, int height, int maxIter) {
+        this(centreReal, centreImag, spanReal, spanImag, width, height,
+            maxIter, null);
+    }
+
+    /**
+     * Create a new view of the region with the given centre and extent.
+     *
+     * @param centreReal
+     * @param centreImag
+     * @param spanReal extent of the region along the real axis
+     * @param spanImag extent of the region along the imaginary axis
+     * @param width
+     * @param height
+     * @param maxIter
+     * @param precision precision to compute with, or null to use the
+     * cheapest one which resolves the view
+     */
+    public MandelView(BigDecimal centreReal, BigDecimal centreImag,
+        double spanReal, double spanImag, int width, int height, int maxIter,
+        Precision precision) {
+        this.centreReal = centreReal;
+        this.centreImag = centreImag;
+
+        double cr = centreReal.doubleValue();
+        double ci = centreImag.doubleValue();
+        this.crMin = cr - 0.5*spanReal;
+        this.crMax = cr + 0.5*spanReal;
+        this.ciMin = ci - 0.5*spanImag;
+        this.ciMax = ci + 0.5*spanImag;
+
+        this.centreRealHi = cr;
+        this.centreRealLo = centreReal.subtract(new BigDecimal(cr)).doubleValue();
+        this.centreImagHi = ci;
+        this.centreImagLo = centreImag.subtract(new BigDecimal(ci)).doubleValue();
+
+        this.width = width;
+        this.height = height;
+        this.maxIter = maxIter;
+
+        this.pixelWidth = spanReal/((double)width);
+        this.pixelHeight = spanImag/((double)height);
+
+        this.precision = precision != null ? precision : getRequiredPrecision();
+        this.seed = computeSeed();
+
+        BigInteger positionX = getGridPosition(centreReal, pixelWidth, width);
+        BigInteger positionY = getGridPosition(centreImag, pixelHeight, height);
+        this.originX = positionX.shiftRight(FRACTION_BITS).longValue();
+        this.originY = positionY.shiftRight(FRACTION_BITS).longValue();
+        this.fractionX = getFraction(positionX);
+        this.fractionY = getFraction(positionY);
+    }
+
+    /**
+     * Derive the seed from the tile cache's scale levels of the pixel
+     * size, so that pixels computed for a view and for the tiles covering
+     * its snapped view are sampled at the same points.
+     *
+     * @return seed of the sample jitter
+     */
+    private long computeSeed() {
+        return mix(31*TileCache.getScaleLevel(pixelWidth)
+            + TileCache.getScaleLevel(pixelHeight));
+    }
+
+    /**
+     * Compute the global grid coordinate of the first pixel along one
+     * axis, in pixels from the origin of the complex plane, rounded to a
+     * multiple of 2^-FRACTION_BITS.
+     *
+     * @param centre centre of the view along the axis
+     * @param pixelSize extent of a pixel along the axis
+     * @param pixels number of pixels along the axis
+     * @return grid coordinate multiplied by 2^FRACTION_BITS
+     */
+    private static BigInteger getGridPosition(BigDecimal centre,
+        double pixelSize, int pixels) {
+        if (!(pixelSize > 0) || Double.isInfinite(pixelSize))
+            return BigInteger.ZERO;
+
+        double ratio = Math.abs(centre.doubleValue())/pixelSize;
+        int digits = (int)Math.ceil(Math.log10(Math.max(ratio, 1.0)));
+        BigDecimal position = centre.divide(new BigDecimal(pixelSize),
+            new MathContext(digits + GUARD_DIGITS));
+
+        return position.subtract(BigDecimal.valueOf(pixels).multiply(
+                BigDecimal.valueOf(0.5)))
+            .multiply(new BigDecimal(BigInteger.ONE.shiftLeft(FRACTION_BITS)))
+            .setScale(0, RoundingMode.HALF_EVEN).toBigInteger();
+    }
+
+    /**
+     * @param position grid coordinate multiplied by 2^FRACTION_BITS
+     * @return fraction of a pixel by which position exceeds its whole part
+     */
+    private static double getFraction(BigInteger position) {
+        long bits = position.longValue() & ((1L << FRACTION_BITS) - 1);
+        return Math.scalb((double)bits, -FRACTION_BITS);
+    }
+
+    /**
+     * @param precision
+     * @return view of the same region computed using the given precision.
+     */
+    public MandelView withPrecision(Precision precision) {
+        return new MandelView(centreReal, centreImag, width*pixelWidth,
+            height*pixelHeight, width, height, maxIter, precision);
+    }
+
+    /**
+     * Determine the cheapest automatic precision whose coordinates are
+     * fine enough to tell adjacent pixels of this view apart reliably.
+     *
+     * @return required precision
+     */
+    public final Precision getRequiredPrecision() {
+        double maxCoord = Math.max(Math.max(Math.abs(crMin), Math.abs(crMax)),
+            Math.max(Math.abs(ciMin), Math.abs(ciMax)));
+        double pixelSize = Math.min(pixelWidth, pixelHeight);
+
+        for (Precision p : Precision.values()) {
+            if (!p.automatic)
+                continue;
+
+            double ulp = Math.scalb(Math.ulp(maxCoord), 52 - p.mantissaBits);
+            if (pixelSize >= MIN_PIXEL_ULPS*ulp)
+                return p;
+        }
+
+        return Precision.PERTURBATION;
+    }
+
+    /**
+     * @return precision sufficient for arbitrary precision arithmetic on
+     * coordinates of this view.
+     */
+    public MathContext getMathContext() {
+        return getMathContext(Math.min(pixelWidth, pixelHeight));
+    }
+
+    /**
+     * @param pixelSize
+     * @return precision sufficient to resolve coordinates separated by
+     * pixelSize.
+     */
+    public static MathContext getMathContext(double pixelSize) {
+        int digits = (int)Math.ceil(-Math.log10(pixelSize));
+        return new MathContext(Math.max(digits, 0) + GUARD_DIGITS);
+    }
+
+    /**
+     * @param x pixel column, possibly fractional
+     * @return real offset of pixel column x from the centre of the view
+     */
+    public double getRealOffset(double x) {
+        return (x - 0.5*width)*pixelWidth;
+    }
+
+    /**
+     * @param y pixel row, possibly fractional
+     * @return imaginary offset of pixel row y from the centre of the view
+     */
+    public double getImagOffset(double y) {
+        return (y - 0.5*height)*pixelHeight;
+    }
+
+    /**
+     * Get complex number associated with pixel grid coordinates (x,y).
+     *
+     * @param x
+     * @param y
+     * @return complex number
+     */
+    public CDouble getPoint(int x, int y) {
+        return new CDouble(crMin + x*(crMax-crMin)/width,
+            ciMin + y*(ciMax-ciMin)/height);
+    }
+
+    /**
+     * Get complex number associated with pixel grid coordinates (x,y), but
+     * with a jitter to avoid aliasing effects.  The jitter is a hash of
+     * the pixel's global grid coordinates and the view's seed, so is the
+     * same whenever the pixel is sampled, by this view or a translation
+     * of it.
+     *
+     * @param x
+     * @param y
+     * @param mag magnitude of jitter
+     * @return complex number
+     */
+    public CDouble getPointJittered(int x, int y, double mag) {
+        return new CDouble(getRealJittered(x, y, mag),
+            getImagJittered(x, y, mag));
+    }
+
+    /**
+     * Get the real part of the complex number associated with pixel
+     * (x,y), with a jitter.  Allocation-free alternative to
+     * getPointJittered() for use in the rendering loop.  The point is
+     * computed from global grid coordinates, which are only exact in
+     * double precision for views shallow enough not to need double-double
+     * arithmetic.
+     *
+     * @param x
+     * @param y
+     * @param mag magnitude of jitter
+     * @return real part
+     */
+    public double getRealJittered(int x, int y, double mag) {
+        return getRealAt(x, getJitterX(x, y, mag));
+    }
+
+    /**
+     * Get the imaginary part of the complex number associated with pixel
+     * (x,y), with a jitter.
+     *
+     * @param x
+     * @param y
+     * @param mag magnitude of jitter
+     * @return imaginary part
+     */
+    public double getImagJittered(int x, int y, double mag) {
+        return getImagAt(y, getJitterY(x, y, mag));
+    }
+
+    /**
+     * Get the real part of the point dx pixels to the right of the
+     * unjittered sample point of pixel column x, computed from global grid
+     * coordinates as getRealJittered() is.
+     *
+     * @param x
+     * @param dx offset in pixels
+     * @return real part
+     */
+    public double getRealAt(int x, double dx) {
+        return ((originX + x) + (fractionX + dx))*pixelWidth;
+    }
+
+    /**
+     * Get the imaginary part of the point dy pixels below the unjittered
+     * sample point of pixel row y.
+     *
+     * @param y
+     * @param dy offset in pixels
+     * @return imaginary part
+     */
+    public double getImagAt(int y, double dy) {
+        return ((originY + y) + (fractionY + dy))*pixelHeight;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @param mag magnitude of jitter
+     * @return horizontal jitter of pixel (x,y) in pixels
+     */
+    public double getJitterX(int x, int y, double mag) {
+        return jitter(seed, originX + x, originY + y, 0, mag);
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @param mag magnitude of jitter
+     * @return vertical jitter of pixel (x,y) in pixels
+     */
+    public double getJitterY(int x, int y, double mag) {
+        return jitter(seed, originX + x, originY + y, 1, mag);
+    }
+
+    /**
+     * Counter-based pseudorandom jitter: a pure function of its
+     * arguments, so it needs no shared generator state and any pixel can
+     * be recomputed independently.
+     *
+     * @param seed
+     * @param x pixel column
+     * @param y pixel row
+     * @param axis 0 for horizontal jitter, 1 for vertical
+     * @param mag magnitude of jitter
+     * @return pixel offset in the range [-mag/2, mag/2)
+     */
+    public static double jitter(long seed, long x, long y, int axis,
+        double mag) {
+        long hash = mix(seed + mix(x*0x9e3779b97f4a7c15L
+            + y*0xc2b2ae3d27d4eb4fL + axis));
+        return mag*((hash >>> 11)*0x1.0p-53 - 0.5);
+    }
+
+    /**
+     * SplitMix64 finalizer: a bijective mixing of the bits of z.
+     *
+     * @param z
+     * @return mixed value
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30))*0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27))*0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param other
+     * @return true if this view covers exactly the same region and pixel
+     * grid as other, regardless of maximum iteration count.
+     */
+    public boolean hasSameRegion(MandelView other) {
+        return other.width == width && other.height == height
+            && other.pixelWidth == pixelWidth
+            && other.pixelHeight == pixelHeight
+            && other.centreReal.compareTo(centreReal) == 0
+            && other.centreImag.compareTo(centreImag) == 0;
+    }
+
+    /**
+     * Determine whether this view differs from other only by a whole
+     * number of pixels' translation smaller than the view itself.
+     *
+     * @param other
+     * @return true if this view is a pixel translation of other.
+     */
+    public boolean isPixelTranslationOf(MandelView other) {
+        if (other.width != width || other.height != height
+            || other.maxIter != maxIter)
+            return false;
+
+        if (Math.abs(other.pixelWidth - pixelWidth) > 1e-9*Math.abs(pixelWidth)
+            || Math.abs(other.pixelHeight - pixelHeight) > 1e-9*Math.abs(pixelHeight))
+            return false;
+
+        double shiftX = getOffsetX(other);
+        double shiftY = getOffsetY(other);
+
+        return Math.abs(shiftX - Math.rint(shiftX)) < 1e-3
+            && Math.abs(shiftY - Math.rint(shiftY)) < 1e-3
+            && Math.abs(shiftX) < width && Math.abs(shiftY) < height;
+    }
+
+    /**
+     * @param other
+     * @return number of pixels by which content of other moves right when
+     * viewed in this view.
+     */
+    public int getShiftX(MandelView other) {
+        return (int)Math.rint(getOffsetX(other));
+    }
+
+    /**
+     * @param other
+     * @return number of pixels by which content of other moves down when
+     * viewed in this view.
+     */
+    public int getShiftY(MandelView other) {
+        return (int)Math.rint(getOffsetY(other));
+    }
+
+    private double getOffsetX(MandelView other) {
+        return other.centreReal.subtract(centreReal).doubleValue()/pixelWidth;
+    }
+
+    private double getOffsetY(MandelView other) {
+        return other.centreImag.subtract(centreImag).doubleValue()/pixelHeight;
+    }
+}
@@ -26,11 +26,20 @@ import java.awt.event.ActionListener;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.IOException;
-import javax.imageio.ImageIO;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import javax.management.JMException;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
@@ -41,6 +50,7 @@ import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JSpinner;
+import javax.swing.ProgressMonitor;
 import javax.swing.KeyStroke;
 import javax.swing.SpinnerNumberModel;
 import javax.swing.SwingUtilities;
@@ -66,6 +76,14 @@ public class MandelscapeApp extends JFrame {
         // Set up main viewer model and panel:
 
         final MandelModel model = new MandelModel(500, 800, 800);
+        model.setTileCache(new TileCache(128L << 20));
+        model.setTileStore(openTileStore());
+        model.setAntialiasing(4);
+        try {
+            model.getMetrics().registerMBean("mandelscape:type=RenderMetrics");
+        } catch (JMException ex) {
+            System.err.println("Could not register metrics MBean: " + ex);
+        }
         Object[] colourModels = {new RainbowColourModel(), new IceColourModel() };
         MandelColourModel colourModel = (MandelColourModel)colourModels[0];
 
@@ -107,6 +125,15 @@ public class MandelscapeApp extends JFrame {
         });
         bottomPanel.add(zoomResetButton);
 
+        final JLabel precisionLabel = new JLabel();
+        model.addChangeListener(new MandelModelChangeListener() {
+            @Override
+            public void modelHasChanged() {
+                precisionLabel.setText("Precision: " + model.getFramePrecision());
+            }
+        });
+        bottomPanel.add(precisionLabel);
+
         cp.add(bottomPanel, BorderLayout.SOUTH);
 
 
@@ -127,17 +154,8 @@ public class MandelscapeApp extends JFrame {
                 JFileChooser fc = new JFileChooser();
                 fc.setFileFilter(new FileNameExtensionFilter("PNG image file", "png"));
                 fc.setSelectedFile(new File("mandel.png"));
-                if (fc.showSaveDialog(mandelPanel) == JFileChooser.APPROVE_OPTION) {
-                    try {
-                        BufferedImage image = mandelPanel.getImage();
-                        File output = fc.getSelectedFile();
-                        ImageIO.write(image, "png", output);
-                    } catch (IOException ex) {
-                        JOptionPane.showMessageDialog(getParent(),
-                            "Error writing file.", "Error",
-                            JOptionPane.ERROR_MESSAGE);
-                    }
-                }
+                if (fc.showSaveDialog(mandelPanel) == JFileChooser.APPROVE_OPTION)
+                    exportImage(fc.getSelectedFile());
             }
         });
         fileMenu.add(fileSaveMenuItem);
@@ -160,6 +178,22 @@ public class MandelscapeApp extends JFrame {
         });
         fileMenu.add(fileExitMenuItem);
 
+        JMenu viewMenu = new JMenu("View");
+        viewMenu.setMnemonic(KeyEvent.VK_V);
+        menuBar.add(viewMenu);
+
+        final JCheckBoxMenuItem viewMetricsMenuItem =
+            new JCheckBoxMenuItem("Frame metrics");
+        viewMetricsMenuItem.setMnemonic(KeyEvent.VK_M);
+        viewMetricsMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_M, InputEvent.CTRL_DOWN_MASK));
+        viewMetricsMenuItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                mandelPanel.setShowMetrics(viewMetricsMenuItem.isSelected());
+            }
+        });
+        viewMenu.add(viewMetricsMenuItem);
+
         JMenu helpMenu = new JMenu("Help");
         helpMenu.setMnemonic(KeyEvent.VK_H);
         menuBar.add(helpMenu);
@@ -213,8 +247,96 @@ public class MandelscapeApp extends JFrame {
         pack();
     }
 
+    /**
+     * Write the displayed image to a PNG file in the background, showing
+     * a progress dialog while it is encoded.
+     *
+     * @param file destination file
+     */
+    private void exportImage(final File file) {
+        // The panel's image is reused for later frames, so take a copy
+        BufferedImage image = mandelPanel.getImage();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] rgb = image.getRGB(0, 0, width, height, null, 0, width);
+
+        final ProgressMonitor monitor = new ProgressMonitor(mandelPanel,
+            "Saving " + file.getName(), null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+
+        final PngExportWorker worker = new PngExportWorker(rgb, width, height, file);
+        worker.addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (monitor.isCanceled())
+                    worker.cancel(true);
+                else if ("progress".equals(evt.getPropertyName()))
+                    monitor.setProgress((Integer)evt.getNewValue());
+                else if (worker.isDone()) {
+                    monitor.close();
+                    try {
+                        worker.get();
+                    } catch (CancellationException ex) {
+                        // Abandoned by user
+                    } catch (InterruptedException ex) {
+                        // Abandoned by user
+                    } catch (ExecutionException ex) {
+                        JOptionPane.showMessageDialog(mandelPanel,
+                            "Error writing file.", "Error",
+                            JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }
+        });
+        worker.execute();
+    }
+
+    /**
+     * Open the tile store in the user's home directory, which is closed
+     * when the JVM exits.
+     *
+     * @return tile store, or null if it could not be opened
+     */
+    private static TileStore openTileStore() {
+        Path dir = Paths.get(System.getProperty("user.home"), ".mandelscape");
+        try {
+            Files.createDirectories(dir);
+            final TileStore store = new TileStore(dir.resolve("tiles.dat"),
+                512L << 20);
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        store.close();
+                    } catch (IOException ex) {
+                        System.err.println("Error closing tile store: " + ex);
+                    }
+                }
+            });
+            return store;
+        } catch (IOException ex) {
+            System.err.println("Could not open tile store: " + ex);
+            return null;
+        }
+    }
+
     public static void main(String[] args) {
 
+        // Serve map tiles, act as a render farm worker, or render
+        // headlessly, if given command line arguments
+        if (args.length > 0 && args[0].equals("-serve")) {
+            TileServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("-worker")) {
+            RenderFarmWorker.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0) {
+            MandelscapeRender.main(args);
+            return;
+        }
+
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
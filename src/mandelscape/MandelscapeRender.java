@@ -0,0 +1,405 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless command-line renderer for images too large to hold in memory.
+ * The image is computed in horizontal strips of a bounded number of
+ * pixels, each of which is rendered on all cores and then coloured and
+ * streamed into a PngStreamWriter on a separate thread while the next
+ * strip is computed.  At most two strips are held at any time, whatever
+ * the size of the image.  If rendering fails the partial image is deleted.
+ *
+ * @author agent <agent@local>
+ */
+public class MandelscapeRender {
+
+    /**
+     * Approximate number of pixels in each strip.
+     */
+    private static final int STRIP_PIXELS = 1 << 22;
+
+    private BigDecimal centreReal = BigDecimal.valueOf(-0.75);
+    private BigDecimal centreImag = BigDecimal.ZERO;
+    private double spanReal = 3.0;
+    private int width = 800, height = 800;
+    private int maxIter = 500;
+    private MandelColourModel colourModel = new RainbowColourModel();
+    private Precision precision = null;
+    private int compressionLevel = 6;
+    private String outputFile = null;
+    private List<InetSocketAddress> workers = null;
+
+    // Zoom sequence: end view, frame count and easing
+    private BigDecimal endReal = null, endImag = null;
+    private double endSpanReal;
+    private int endMaxIter = -1;
+    private int frames = 0;
+    private ZoomSequence.Easing easing = ZoomSequence.Easing.SMOOTH;
+
+    private final RenderEngine engine = new RenderEngine();
+
+    /**
+     * Describe the command line syntax.
+     */
+    private static final String USAGE =
+        "Usage: MandelscapeRender [options] output.png\n"
+        + "       MandelscapeRender [options] -zoomto RE IM S -frames N frame%05d.png\n"
+        + "\n"
+        + "Options:\n"
+        + "  -centre RE IM     centre of the image (default -0.75 0)\n"
+        + "  -span S           extent of the image along the real axis (default 3)\n"
+        + "  -size WxH         image size in pixels (default 800x800)\n"
+        + "  -maxiter N        maximum iteration count (default 500)\n"
+        + "  -colour NAME      colour model: rainbow or ice (default rainbow)\n"
+        + "  -period N         colour model period\n"
+        + "  -precision NAME   force float, double, double-double or perturbation\n"
+        + "  -compression N    deflate level 0-9 (default 6)\n"
+        + "  -threads N        number of worker threads (default: all cores)\n"
+        + "  -workers LIST     render on the render farm workers at the\n"
+        + "                    comma-separated host:port addresses\n"
+        + "\n"
+        + "Zoom sequence options:\n"
+        + "  -zoomto RE IM S   centre and real extent of the last frame\n"
+        + "  -frames N         number of frames to render\n"
+        + "  -endmaxiter N     iteration count of the last frame (default maxiter)\n"
+        + "  -easing NAME      linear or smooth (default smooth)\n";
+
+    public static void main(String[] args) {
+        MandelscapeRender renderer = new MandelscapeRender();
+
+        try {
+            renderer.parseArgs(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE);
+            System.exit(1);
+        }
+
+        try {
+            renderer.render();
+        } catch (IOException ex) {
+            System.err.println("Error writing image: " + ex.getMessage());
+            System.exit(1);
+        }
+
+        System.exit(0);
+    }
+
+    /**
+     * Configure the renderer from command line arguments.
+     *
+     * @param args
+     * @throws IllegalArgumentException if the arguments are invalid
+     */
+    public void parseArgs(String[] args) {
+        int i = 0;
+        try {
+            while (i < args.length) {
+                String arg = args[i++];
+
+                if (arg.equals("-centre")) {
+                    centreReal = new BigDecimal(args[i++]);
+                    centreImag = new BigDecimal(args[i++]);
+                } else if (arg.equals("-span")) {
+                    spanReal = Double.parseDouble(args[i++]);
+                } else if (arg.equals("-size")) {
+                    String[] dims = args[i++].split("x");
+                    if (dims.length != 2)
+                        throw new IllegalArgumentException("Size must be given as WxH.");
+                    width = Integer.parseInt(dims[0]);
+                    height = Integer.parseInt(dims[1]);
+                } else if (arg.equals("-maxiter")) {
+                    maxIter = Integer.parseInt(args[i++]);
+                } else if (arg.equals("-colour")) {
+                    String name = args[i++];
+                    if (name.equalsIgnoreCase("rainbow"))
+                        colourModel = new RainbowColourModel();
+                    else if (name.equalsIgnoreCase("ice"))
+                        colourModel = new IceColourModel();
+                    else
+                        throw new IllegalArgumentException("Unknown colour model "
+                            + name + ".");
+                } else if (arg.equals("-period")) {
+                    colourModel.setPeriod(Integer.parseInt(args[i++]));
+                } else if (arg.equals("-precision")) {
+                    String name = args[i++];
+                    precision = null;
+                    for (Precision p : Precision.values()) {
+                        if (p.kernelId.equalsIgnoreCase(name))
+                            precision = p;
+                    }
+                    if (precision == null)
+                        throw new IllegalArgumentException("Unknown precision "
+                            + name + ".");
+                } else if (arg.equals("-zoomto")) {
+                    endReal = new BigDecimal(args[i++]);
+                    endImag = new BigDecimal(args[i++]);
+                    endSpanReal = Double.parseDouble(args[i++]);
+                } else if (arg.equals("-frames")) {
+                    frames = Integer.parseInt(args[i++]);
+                } else if (arg.equals("-endmaxiter")) {
+                    endMaxIter = Integer.parseInt(args[i++]);
+                } else if (arg.equals("-easing")) {
+                    String name = args[i++];
+                    easing = null;
+                    for (ZoomSequence.Easing e : ZoomSequence.Easing.values()) {
+                        if (e.name.equalsIgnoreCase(name))
+                            easing = e;
+                    }
+                    if (easing == null)
+                        throw new IllegalArgumentException("Unknown easing "
+                            + name + ".");
+                } else if (arg.equals("-compression")) {
+                    compressionLevel = Integer.parseInt(args[i++]);
+                } else if (arg.equals("-threads")) {
+                    engine.setParallelism(Integer.parseInt(args[i++]));
+                } else if (arg.equals("-workers")) {
+                    workers = RenderFarm.parseAddresses(args[i++]);
+                } else if (arg.startsWith("-")) {
+                    throw new IllegalArgumentException("Unknown option " + arg + ".");
+                } else if (outputFile == null) {
+                    outputFile = arg;
+                } else
+                    throw new IllegalArgumentException("Only one output file may be given.");
+            }
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Missing value for " + args[i-1] + ".");
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid number: " + ex.getMessage());
+        }
+
+        if (outputFile == null)
+            throw new IllegalArgumentException("No output file given.");
+        if (width <= 0 || height <= 0 || maxIter <= 0 || !(spanReal > 0))
+            throw new IllegalArgumentException("Size, span and maxiter must be positive.");
+        if (compressionLevel < 0 || compressionLevel > 9)
+            throw new IllegalArgumentException("Compression level must be 0-9.");
+        if ((endReal != null) != (frames > 0))
+            throw new IllegalArgumentException("Zoom sequences need both -zoomto and -frames.");
+        if (frames > 0 && (frames < 2 || !(endSpanReal > 0)))
+            throw new IllegalArgumentException("Zoom sequences need at least "
+                + "two frames and a positive span.");
+        if (frames > 0 && workers != null)
+            throw new IllegalArgumentException("Zoom sequences cannot be "
+                + "rendered on a render farm.");
+        if (frames > 0 && !outputFile.contains("%"))
+            throw new IllegalArgumentException("Frame file name must contain "
+                + "a format specifier such as %05d.");
+    }
+
+    /**
+     * Render the configured image to the output file.
+     *
+     * @throws IOException
+     */
+    public void render() throws IOException {
+        if (frames > 0) {
+            renderSequence();
+            return;
+        }
+
+        double pixelSize = spanReal/width;
+        double spanImag = pixelSize*height;
+
+        // Choose one precision for the whole image, so that strips match
+        MandelView fullView = new MandelView(centreReal, centreImag, spanReal,
+            spanImag, width, height, maxIter, precision);
+        Precision imagePrecision = fullView.precision;
+        MathContext mc = fullView.getMathContext();
+
+        int stripHeight = Math.max(1, Math.min(height, STRIP_PIXELS/width));
+
+        System.err.println("Rendering " + width + "x" + height + " image at "
+            + imagePrecision + " precision in strips of " + stripHeight
+            + " rows.");
+
+        OutputStream stream = new BufferedOutputStream(
+            new FileOutputStream(outputFile), 1 << 16);
+
+        int threads = engine.getParallelism();
+        ExecutorService compressor = Executors.newFixedThreadPool(threads);
+        ExecutorService encoder = Executors.newSingleThreadExecutor();
+        RenderFarm farm = null;
+        boolean complete = false;
+        try {
+            final PngStreamWriter writer = new PngStreamWriter(stream,
+                width, height, compressionLevel, compressor, 2*threads);
+
+            if (workers != null) {
+                if (imagePrecision == Precision.PERTURBATION)
+                    System.err.println("Perturbation is not supported by the "
+                        + "render farm, so rendering locally.");
+                else {
+                    farm = new RenderFarm(workers);
+                    System.err.println("Using " + farm.getWorkerCount()
+                        + " render farm workers with " + farm.getWorkerThreads()
+                        + " threads.");
+                }
+            }
+
+            try {
+                writeStrips(writer, encoder, farm, imagePrecision, mc,
+                    pixelSize, stripHeight);
+                writer.close();
+                complete = true;
+            } finally {
+                if (!complete) {
+                    // Stop the encoder before abandoning the writer it uses
+                    encoder.shutdownNow();
+                    try {
+                        encoder.awaitTermination(1, TimeUnit.MINUTES);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    writer.abort();
+                }
+            }
+        } finally {
+            encoder.shutdown();
+            compressor.shutdown();
+            if (farm != null)
+                farm.close();
+            if (!complete) {
+                try {
+                    stream.close();
+                } catch (IOException ex) {
+                    // Already failed
+                }
+                new File(outputFile).delete();
+            }
+        }
+    }
+
+    /**
+     * Render, colour and encode the image strip by strip.
+     *
+     * @param writer writer to which rows are passed on the encoder thread
+     * @param encoder single thread on which rows are encoded
+     * @param farm render farm to compute strips on, or null to compute
+     * them locally
+     * @param imagePrecision precision of every strip
+     * @param mc context for computing strip centres
+     * @param pixelSize
+     * @param stripHeight
+     * @throws IOException
+     */
+    private void writeStrips(final PngStreamWriter writer,
+        ExecutorService encoder, RenderFarm farm, Precision imagePrecision,
+        MathContext mc, double pixelSize, int stripHeight) throws IOException {
+        Future<?> pending = null;
+        long startTime = System.currentTimeMillis();
+
+        for (int y0=0; y0<height; y0+=stripHeight) {
+            final int h = Math.min(stripHeight, height - y0);
+
+            // Offset of strip centre from image centre
+            double offset = (y0 + 0.5*h - 0.5*height)*pixelSize;
+            MandelView view = new MandelView(centreReal,
+                centreImag.add(new BigDecimal(offset), mc),
+                spanReal, h*pixelSize, width, h, maxIter, imagePrecision);
+
+            int[] iters = new int[width*h];
+            if (farm != null)
+                farm.render(view, iters, Cancellable.NEVER);
+            else if (imagePrecision == Precision.PERTURBATION)
+                engine.renderPerturbed(view, iters, Cancellable.NEVER);
+            else
+                engine.render(view, iters, Cancellable.NEVER);
+
+            final int[] rgb = new int[iters.length];
+            colourModel.fillRGB(iters, rgb);
+
+            waitFor(pending);
+            pending = encoder.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    for (int y=0; y<h; y++)
+                        writer.writeRow(rgb, y*width);
+                    return null;
+                }
+            });
+
+            System.err.printf("%.1f%% (%d s)\n", 100.0*(y0 + h)/height,
+                (System.currentTimeMillis() - startTime)/1000);
+        }
+
+        waitFor(pending);
+    }
+
+    /**
+     * Render the configured zoom sequence to numbered frame files.
+     *
+     * @throws IOException
+     */
+    public void renderSequence() throws IOException {
+        double spanImag = spanReal*height/width;
+        MandelView startView = new MandelView(centreReal, centreImag,
+            spanReal, spanImag, width, height, maxIter);
+        MandelView endView = new MandelView(endReal, endImag, endSpanReal,
+            endSpanReal*height/width, width, height,
+            endMaxIter > 0 ? endMaxIter : maxIter);
+
+        ZoomSequence sequence = new ZoomSequence(startView, endView, frames, easing);
+
+        System.err.println("Rendering " + frames + " frames of " + width
+            + "x" + height + ".");
+        long startTime = System.currentTimeMillis();
+        sequence.render(engine, colourModel, outputFile, compressionLevel);
+        System.err.println("Rendered " + frames + " frames from "
+            + sequence.getKeyframesRendered() + " keyframes in "
+            + (System.currentTimeMillis() - startTime)/1000 + " s.");
+    }
+
+    /**
+     * Wait for an encoding task to complete, rethrowing any IOException
+     * it raised.
+     *
+     * @param task task to wait for, or null
+     * @throws IOException
+     */
+    private static void waitFor(Future<?> task) throws IOException {
+        if (task == null)
+            return;
+
+        try {
+            task.get();
+        } catch (InterruptedException ex) {
+            throw new IOException("Interrupted while encoding image.", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException)
+                throw (IOException)ex.getCause();
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.math.MathContext;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Deep zoom renderer based on perturbation theory.  A single reference
+ * orbit Z_n is computed in arbitrary precision at the centre of the view,
+ * and every pixel c = C + dc is iterated in double precision as an offset
+ * dz_n from it:
+ *
+ *   dz_{n+1} = 2 Z_n dz_n + dz_n^2 + dc.
+ *
+ * The first iterations are skipped using the series approximation
+ * dz_n = A_n dc + B_n dc^2 + C_n dc^3, whose coefficients are shared by
+ * all pixels.  Where the offset grows as large as the full value
+ * Z_n + dz_n, or the reference escapes before the pixel does, the
+ * offset can no longer be represented accurately relative to the orbit
+ * (a glitch).  Such pixels are rebased onto the start of the reference
+ * orbit, setting dz to the full value of z, so that one reference
+ * suffices for the whole view.
+ *
+ * @author agent <agent@local>
+ */
+public class PerturbationRenderer {
+
+    /**
+     * The series approximation is used for as long as the cubic term is
+     * this small relative to the quadratic one at the edge of the view.
+     */
+    private static final double SERIES_TOLERANCE = 1e-3;
+
+    /**
+     * Number of pixel rows below which work is no longer split between
+     * threads.
+     */
+    private static final int ROW_GRAIN = 4;
+
+    private final MandelView view;
+    private final MathContext mc;
+
+    private int skippedIters;
+
+    /**
+     * Create a renderer for the given view.
+     *
+     * @param view
+     */
+    public PerturbationRenderer(MandelView view) {
+        this.view = view;
+        this.mc = view.getMathContext();
+    }
+
+    /**
+     * @return number of iterations skipped using the series approximation
+     * in the last render.
+     */
+    public int getSkippedIters() {
+        return skippedIters;
+    }
+
+    /**
+     * Compute the escape iteration count of every pixel in the view.
+     *
+     * @param pool pool on which to compute pixels
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     */
+    public void render(ForkJoinPool pool, int[] iters, Cancellable job) {
+        if (view.width == 0 || view.height == 0)
+            return;
+
+        ReferenceOrbit ref = ReferenceOrbit.compute(view.centreReal,
+            view.centreImag, view.maxIter, mc, job);
+        if (ref == null)
+            return;
+
+        // Series approximation coefficients A, B, C at iteration skip
+        double[] series = new double[6];
+        double dcMax = Math.hypot(0.5*view.width*view.pixelWidth,
+            0.5*view.height*view.pixelHeight);
+        skippedIters = computeSeries(ref, dcMax, series);
+
+        pool.invoke(new RowTask(ref, series, skippedIters, iters, job,
+            0, view.height));
+    }
+
+    /**
+     * Iterate the series approximation coefficients along the reference
+     * orbit for as long as the truncated series remains accurate for all
+     * offsets up to dcMax.
+     *
+     * @param ref reference orbit
+     * @param dcMax largest pixel offset from the reference
+     * @param series destination for the real and imaginary parts of A, B
+     * and C at the returned iteration
+     * @return number of iterations which may be skipped
+     */
+    private int computeSeries(ReferenceOrbit ref, double dcMax,
+        double[] series) {
+        double ar = 0, ai = 0, br = 0, bi = 0, cr = 0, ci = 0;
+        int skip = 0;
+
+        int limit = Math.min(view.maxIter, ref.length - 2);
+        for (int n=0; n<limit; n++) {
+            double zr = 2*ref.zr[n], zi = 2*ref.zi[n];
+
+            double nar = zr*ar - zi*ai + 1;
+            double nai = zr*ai + zi*ar;
+            double nbr = zr*br - zi*bi + ar*ar - ai*ai;
+            double nbi = zr*bi + zi*br + 2*ar*ai;
+            double ncr = zr*cr - zi*ci + 2*(ar*br - ai*bi);
+            double nci = zr*ci + zi*cr + 2*(ar*bi + ai*br);
+
+            if (Math.hypot(ncr, nci)*dcMax
+                > SERIES_TOLERANCE*Math.hypot(nbr, nbi))
+                break;
+
+            ar = nar; ai = nai;
+            br = nbr; bi = nbi;
+            cr = ncr; ci = nci;
+            skip = n + 1;
+        }
+
+        series[0] = ar; series[1] = ai;
+        series[2] = br; series[3] = bi;
+        series[4] = cr; series[5] = ci;
+
+        return skip;
+    }
+
+    /**
+     * Iterate the offset of a single pixel from the reference orbit,
+     * rebasing whenever a glitch is detected.
+     *
+     * @param ref reference orbit
+     * @param dcr real part of the pixel's offset from the reference point
+     * @param dci imaginary part of the offset
+     * @param start iteration at which to start
+     * @param dzr real part of the orbit offset at iteration start
+     * @param dzi imaginary part of the orbit offset
+     * @param maxIter
+     * @return escape iteration count, or -1 if bounded
+     */
+    private static int iterate(ReferenceOrbit ref, double dcr, double dci,
+        int start, double dzr, double dzi, int maxIter) {
+
+        int last = ref.length - 1;
+        int n = start;
+        for (int i=start; i<maxIter; i++) {
+            double zr = ref.zr[n], zi = ref.zi[n];
+            double nr = 2*(zr*dzr - zi*dzi) + dzr*dzr - dzi*dzi + dcr;
+            double ni = 2*(zr*dzi + zi*dzr) + 2*dzr*dzi + dci;
+            dzr = nr;
+            dzi = ni;
+            n += 1;
+
+            double fr = ref.zr[n] + dzr;
+            double fi = ref.zi[n] + dzi;
+            double abs2 = fr*fr + fi*fi;
+            if (abs2 > EscapeKernel.ESCAPE_RADIUS2)
+                return i;
+
+            if (abs2 < dzr*dzr + dzi*dzi || n == last) {
+                // Rebase onto Z_0 = 0
+                dzr = fr;
+                dzi = fi;
+                n = 0;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Fork/join task which computes a strip of rows against the primary
+     * reference, starting from the series approximation.
+     */
+    @SuppressWarnings("serial")
+    private class RowTask extends RecursiveAction {
+
+        private final ReferenceOrbit ref;
+        private final double[] series;
+        private final int skip;
+        private final int[] iters;
+        private final Cancellable job;
+        private final int yStart, yEnd;
+
+        RowTask(ReferenceOrbit ref, double[] series, int skip, int[] iters,
+            Cancellable job, int yStart, int yEnd) {
+            this.ref = ref;
+            this.series = series;
+            this.skip = skip;
+            this.iters = iters;
+            this.job = job;
+            this.yStart = yStart;
+            this.yEnd = yEnd;
+        }
+
+        @Override
+        protected void compute() {
+            if (job.isCancelled())
+                return;
+
+            if (yEnd - yStart > ROW_GRAIN) {
+                int yMid = (yStart + yEnd) >>> 1;
+                invokeAll(new RowTask(ref, series, skip, iters, job, yStart, yMid),
+                    new RowTask(ref, series, skip, iters, job, yMid, yEnd));
+                return;
+            }
+
+            double ar = series[0], ai = series[1];
+            double br = series[2], bi = series[3];
+            double cr = series[4], ci = series[5];
+
+            for (int y=yStart; y<yEnd; y++) {
+                int offset = y*view.width;
+                for (int x=0; x<view.width; x++) {
+                    double dcr = view.getRealOffset(x + view.getJitterX(x, y, 0.1));
+                    double dci = view.getImagOffset(y + view.getJitterY(x, y, 0.1));
+
+                    // dz = A dc + B dc^2 + C dc^3
+                    double d2r = dcr*dcr - dci*dci, d2i = 2*dcr*dci;
+                    double d3r = d2r*dcr - d2i*dci, d3i = d2r*dci + d2i*dcr;
+                    double dzr = ar*dcr - ai*dci + br*d2r - bi*d2i
+                        + cr*d3r - ci*d3i;
+                    double dzi = ar*dci + ai*dcr + br*d2i + bi*d2r
+                        + cr*d3i + ci*d3r;
+
+                    iters[offset + x] = iterate(ref, dcr, dci, skip, dzr, dzi,
+                        view.maxIter);
+                }
+            }
+        }
+    }
+}
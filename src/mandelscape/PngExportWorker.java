@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.SwingWorker;
+
+/**
+ * Background task which encodes an image to a PNG file, compressing on
+ * all available cores.  Progress is reported as the percentage of rows
+ * compressed and written to the file through the worker's "progress"
+ * property.  If the export fails or is cancelled the partial file is
+ * deleted.
+ *
+ * @author agent <agent@local>
+ */
+public class PngExportWorker extends SwingWorker<Void, Void> {
+
+    private static final int COMPRESSION_LEVEL = 6;
+
+    private final int[] rgb;
+    private final int width, height;
+    private final File file;
+
+    /**
+     * Create a new export task.
+     *
+     * @param rgb row-major packed RGB pixels, which must not be modified
+     * while the task runs
+     * @param width
+     * @param height
+     * @param file destination file
+     */
+    public PngExportWorker(int[] rgb, int width, int height, File file) {
+        this.rgb = rgb;
+        this.width = width;
+        this.height = height;
+        this.file = file;
+    }
+
+    @Override
+    protected Void doInBackground() throws IOException {
+        OutputStream stream = new BufferedOutputStream(
+            new FileOutputStream(file), 1 << 16);
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService compressor = Executors.newFixedThreadPool(threads);
+
+        boolean complete = false;
+        try {
+            PngStreamWriter writer = new PngStreamWriter(stream, width, height,
+                COMPRESSION_LEVEL, compressor, 2*threads);
+
+            try {
+                for (int y=0; y<height && !isCancelled(); y++) {
+                    writer.writeRow(rgb, y*width);
+                    setProgress((int)(100L*writer.getCompressedRows()/height));
+                }
+
+                if (!isCancelled()) {
+                    writer.close();
+                    complete = true;
+                    setProgress(100);
+                }
+            } finally {
+                if (!complete)
+                    writer.abort();
+            }
+        } finally {
+            compressor.shutdownNow();
+            if (!complete)
+                file.delete();
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes an 8-bit truecolour PNG image one row at a time, so that images
+ * of any size can be encoded without holding them in memory.
+ *
+ * Filtered rows are gathered into blocks of about BLOCK_SIZE bytes which
+ * are deflated independently, in parallel if an executor is supplied.
+ * Each block is primed with the tail of the block before it and ended
+ * with a sync flush, so that the concatenated blocks form a single valid
+ * zlib stream (the scheme used by pigz).  Compressed data is emitted in
+ * IDAT chunks of at most CHUNK_SIZE bytes.
+ *
+ * @author agent <agent@local>
+ */
+public class PngStreamWriter {
+
+    private static final byte[] SIGNATURE = {
+        (byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'
+    };
+
+    /**
+     * Maximum size of the data in each IDAT chunk.
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    /**
+     * Approximate size of the uncompressed data in each block.
+     */
+    private static final int BLOCK_SIZE = 1 << 18;
+
+    /**
+     * Size of the deflate window, and so of the dictionary with which each
+     * block is primed.
+     */
+    private static final int DICT_SIZE = 1 << 15;
+
+    /**
+     * PNG "Sub" filter: each byte is stored as its difference from the
+     * corresponding byte of the pixel to its left.
+     */
+    private static final int FILTER_SUB = 1;
+
+    private final DataOutputStream out;
+    private final ChunkOutputStream idat;
+    private final int width, height, level;
+    private final int rowLength, blockRows;
+    private final ExecutorService executor;
+    private final int maxPending;
+
+    private final ArrayDeque<Future<Block>> pending = new ArrayDeque<Future<Block>>();
+    private final Adler32 adler = new Adler32();
+    private byte[] blockBytes, prevBlockBytes = null;
+    private int blockLength = 0;
+    private int rowsWritten = 0;
+    private int rowsCompressed = 0;
+
+    /**
+     * Start a new image by writing the PNG header.  The image data is
+     * compressed on the calling thread.
+     *
+     * @param out stream to write to, which is closed by close() or
+     * abort(), or here if the header cannot be written
+     * @param width
+     * @param height
+     * @param level deflate compression level, 0-9
+     * @throws IOException
+     */
+    public PngStreamWriter(OutputStream out, int width, int height, int level)
+        throws IOException {
+        this(out, width, height, level, null, 1);
+    }
+
+    /**
+     * Start a new image by writing the PNG header.  The image data is
+     * compressed by tasks submitted to executor, of which at most
+     * maxPending are outstanding at any time.
+     *
+     * @param out stream to write to, which is closed by close() or
+     * abort(), or here if the header cannot be written
+     * @param width
+     * @param height
+     * @param level deflate compression level, 0-9
+     * @param executor executor on which to compress, or null to compress
+     * on the calling thread
+     * @param maxPending maximum number of blocks awaiting compression
+     * @throws IOException
+     */
+    public PngStreamWriter(OutputStream out, int width, int height, int level,
+        ExecutorService executor, int maxPending) throws IOException {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Image dimensions must be positive.");
+        if (width > (Integer.MAX_VALUE - 1)/3)
+            throw new IllegalArgumentException("Image is too wide.");
+
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.level = level;
+        this.executor = executor;
+        this.maxPending = Math.max(maxPending, 1);
+
+        rowLength = 1 + 3*width;
+        blockRows = Math.max(1, BLOCK_SIZE/rowLength);
+        blockBytes = new byte[blockRows*rowLength];
+
+        ByteArrayOutputStream ihdr = new ByteArrayOutputStream();
+        DataOutputStream ihdrData = new DataOutputStream(ihdr);
+        ihdrData.writeInt(width);
+        ihdrData.writeInt(height);
+        ihdrData.writeByte(8);  // bit depth
+        ihdrData.writeByte(2);  // colour type: truecolour
+        ihdrData.writeByte(0);  // compression: deflate
+        ihdrData.writeByte(0);  // filter method: adaptive
+        ihdrData.writeByte(0);  // interlace: none
+
+        try {
+            this.out.write(SIGNATURE);
+            writeChunk("IHDR", ihdr.toByteArray(), 0, ihdr.size());
+        } catch (IOException ex) {
+            abort();
+            throw ex;
+        }
+
+        // zlib header: deflate with 32K window, no preset dictionary
+        idat = new ChunkOutputStream();
+        idat.write(0x78);
+        idat.write(0x9c);
+    }
+
+    /**
+     * @return number of rows still to be written.
+     */
+    public int getRemainingRows() {
+        return height - rowsWritten;
+    }
+
+    /**
+     * @return number of rows whose compressed data has been written to
+     * the stream.  Rows are compressed in blocks, so this lags behind the
+     * rows passed to writeRow().
+     */
+    public int getCompressedRows() {
+        return rowsCompressed;
+    }
+
+    /**
+     * Append a row of pixels to the image.
+     *
+     * @param rgb packed RGB colours
+     * @param offset index in rgb of the leftmost pixel of the row
+     * @throws IOException
+     */
+    public void writeRow(int[] rgb, int offset) throws IOException {
+        if (rowsWritten == height)
+            throw new IllegalStateException("All rows have already been written.");
+
+        byte[] rowBytes = blockBytes;
+        int i = blockLength;
+        rowBytes[i++] = FILTER_SUB;
+        int prev = 0;
+        for (int x=0; x<width; x++, i+=3) {
+            int pixel = rgb[offset + x];
+            rowBytes[i] = (byte)((pixel >> 16) - (prev >> 16));
+            rowBytes[i+1] = (byte)((pixel >> 8) - (prev >> 8));
+            rowBytes[i+2] = (byte)(pixel - prev);
+            prev = pixel;
+        }
+        blockLength = i;
+        rowsWritten += 1;
+
+        if (blockLength == blockBytes.length || rowsWritten == height)
+            submitBlock();
+    }
+
+    /**
+     * Finish the image and close the underlying stream.  All rows must
+     * have been written.  If the image cannot be finished the writer is
+     * aborted, leaving the stream closed.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        if (rowsWritten != height)
+            throw new IllegalStateException("Image has " + (height - rowsWritten)
+                + " rows missing.");
+
+        boolean finished = false;
+        try {
+            while (!pending.isEmpty())
+                writeBlock(pending.removeFirst());
+
+            int checksum = (int)adler.getValue();
+            idat.write(checksum >>> 24);
+            idat.write(checksum >>> 16);
+            idat.write(checksum >>> 8);
+            idat.write(checksum);
+            idat.close();
+
+            writeChunk("IEND", new byte[0], 0, 0);
+            finished = true;
+        } finally {
+            if (!finished)
+                abort();
+        }
+
+        out.close();
+    }
+
+    /**
+     * Abandon an unfinished image, discarding any outstanding blocks and
+     * closing the underlying stream.  Errors closing the stream are
+     * ignored, as whatever it holds is being thrown away.
+     */
+    public void abort() {
+        while (!pending.isEmpty())
+            pending.removeFirst().cancel(true);
+
+        try {
+            out.close();
+        } catch (IOException ex) {
+            // Already failed
+        }
+    }
+
+    /**
+     * Hand the current block to the executor, first writing out the
+     * oldest compressed block if too many are outstanding.
+     *
+     * @throws IOException
+     */
+    private void submitBlock() throws IOException {
+        Block block = new Block(blockBytes, blockLength, prevBlockBytes,
+            rowsWritten == height);
+
+        if (executor == null) {
+            writeBlock(block.call());
+        } else {
+            if (pending.size() >= maxPending)
+                writeBlock(pending.removeFirst());
+            pending.addLast(executor.submit(block));
+        }
+
+        prevBlockBytes = blockBytes;
+        blockBytes = new byte[blockBytes.length];
+        blockLength = 0;
+    }
+
+    private void writeBlock(Future<Block> future) throws IOException {
+        try {
+            writeBlock(future.get());
+        } catch (InterruptedException ex) {
+            throw new IOException("Interrupted while compressing image.", ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Error compressing image.", ex.getCause());
+        }
+    }
+
+    private void writeBlock(Block block) throws IOException {
+        idat.write(block.compressed, 0, block.compressedLength);
+        adler.update(block.data, 0, block.length);
+        rowsCompressed += block.length/rowLength;
+    }
+
+    private void writeChunk(String type, byte[] data, int offset, int length)
+        throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, offset, length);
+
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, offset, length);
+        out.writeInt((int)crc.getValue());
+    }
+
+    /**
+     * Raw deflate compression of one block of filtered rows.
+     */
+    private class Block implements Callable<Block> {
+
+        final byte[] data;
+        final int length;
+        final byte[] dictionary;
+        final boolean last;
+
+        byte[] compressed;
+        int compressedLength = 0;
+
+        Block(byte[] data, int length, byte[] dictionary, boolean last) {
+            this.data = data;
+            this.length = length;
+            this.dictionary = dictionary;
+            this.last = last;
+        }
+
+        @Override
+        public Block call() {
+            Deflater deflater = new Deflater(level, true);
+            try {
+                if (dictionary != null) {
+                    int dictLength = Math.min(DICT_SIZE, dictionary.length);
+                    deflater.setDictionary(dictionary,
+                        dictionary.length - dictLength, dictLength);
+                }
+                deflater.setInput(data, 0, length);
+                if (last)
+                    deflater.finish();
+
+                compressed = new byte[length/2 + 64];
+                while (true) {
+                    if (compressedLength == compressed.length)
+                        compressed = Arrays.copyOf(compressed,
+                            2*compressed.length);
+
+                    int space = compressed.length - compressedLength;
+                    int n = deflater.deflate(compressed, compressedLength,
+                        space, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                    compressedLength += n;
+
+                    if (last ? deflater.finished() : n < space)
+                        break;
+                }
+            } finally {
+                deflater.end();
+            }
+
+            return this;
+        }
+    }
+
+    /**
+     * Collects compressed image data, emitting an IDAT chunk whenever a
+     * full chunk is available and when closed.
+     */
+    private class ChunkOutputStream extends OutputStream {
+
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int count = 0;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length)
+                flushChunk();
+            buffer[count++] = (byte)b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length)
+                    flushChunk();
+
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushChunk();
+        }
+
+        private void flushChunk() throws IOException {
+            if (count > 0)
+                writeChunk("IDAT", buffer, 0, count);
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+/**
+ * Arithmetic tiers available for computing escape iteration counts, in
+ * order of increasing cost.  Each tier can resolve pixels down to a
+ * smaller spacing than the one before it.  Views choose the cheapest
+ * automatic tier which resolves them; FLOAT is only used when forced.
+ *
+ * @author agent <agent@local>
+ */
+public enum Precision {
+
+    /**
+     * Single precision, computed by FloatKernel.  Never chosen
+     * automatically: rounding errors in the orbit grow with the iteration
+     * count, so float results differ visibly from double ones at typical
+     * iteration counts even where float coordinates resolve the pixels,
+     * and the scalar float kernel is barely faster than the vectorized
+     * double one.
+     */
+    FLOAT("float", 23, false),
+
+    /**
+     * Double precision, computed by EscapeKernel.
+     */
+    DOUBLE(EscapeKernel.KERNEL_ID, 52, true),
+
+    /**
+     * Double-double precision, computed by DoubleDoubleKernel.
+     */
+    DOUBLE_DOUBLE("double-double", 104, true),
+
+    /**
+     * Perturbation around an arbitrary precision reference orbit, computed
+     * by PerturbationRenderer.  Has no lower limit on pixel spacing short
+     * of the double exponent range.
+     */
+    PERTURBATION("perturbation", Integer.MAX_VALUE, true);
+
+    /**
+     * Identifies results produced at this precision in caches.
+     */
+    public final String kernelId;
+
+    /**
+     * Number of explicitly stored mantissa bits of coordinates.
+     */
+    final int mantissaBits;
+
+    /**
+     * Whether views may choose this tier when none is forced.
+     */
+    final boolean automatic;
+
+    private Precision(String kernelId, int mantissaBits, boolean automatic) {
+        this.kernelId = kernelId;
+        this.mantissaBits = mantissaBits;
+        this.automatic = automatic;
+    }
+
+    @Override
+    public String toString() {
+        return kernelId;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Orbit Z_{n+1} = Z_n^2 + C of a single reference point, computed in
+ * arbitrary precision and stored as doubles.  Nearby points are iterated
+ * as double precision offsets from this orbit by the PerturbationRenderer.
+ *
+ * @author agent <agent@local>
+ */
+public class ReferenceOrbit {
+
+    /**
+     * Reference point.
+     */
+    public final BigDecimal cr, ci;
+
+    /**
+     * Orbit values Z_0=0, Z_1, ... Z_{length-1} and their squared moduli.
+     */
+    final double[] zr, zi, abs2;
+
+    /**
+     * Number of orbit values available.  Less than maxIter+1 only if the
+     * orbit escaped, in which case the last value is the escaped one.
+     */
+    final int length;
+
+    private ReferenceOrbit(BigDecimal cr, BigDecimal ci, double[] zr,
+        double[] zi, double[] abs2, int length) {
+        this.cr = cr;
+        this.ci = ci;
+        this.zr = zr;
+        this.zi = zi;
+        this.abs2 = abs2;
+        this.length = length;
+    }
+
+    /**
+     * Compute the orbit of the reference point (cr, ci).
+     *
+     * @param cr
+     * @param ci
+     * @param maxIter maximum number of iterations
+     * @param mc precision of the arbitrary precision arithmetic
+     * @param job job on whose behalf the orbit is computed
+     * @return orbit, or null if job was cancelled
+     */
+    public static ReferenceOrbit compute(BigDecimal cr, BigDecimal ci,
+        int maxIter, MathContext mc, Cancellable job) {
+        double[] zr = new double[maxIter + 1];
+        double[] zi = new double[maxIter + 1];
+        double[] abs2 = new double[maxIter + 1];
+
+        BigDecimal two = BigDecimal.valueOf(2);
+        BigDecimal bzr = BigDecimal.ZERO, bzi = BigDecimal.ZERO;
+
+        int n = 1;
+        while (n <= maxIter) {
+            if (n % 256 == 0 && job.isCancelled())
+                return null;
+
+            BigDecimal zr2 = bzr.multiply(bzr, mc);
+            BigDecimal zi2 = bzi.multiply(bzi, mc);
+            bzi = two.multiply(bzr, mc).multiply(bzi, mc).add(ci, mc);
+            bzr = zr2.subtract(zi2, mc).add(cr, mc);
+
+            zr[n] = bzr.doubleValue();
+            zi[n] = bzi.doubleValue();
+            abs2[n] = zr[n]*zr[n] + zi[n]*zi[n];
+            n += 1;
+
+            if (abs2[n-1] > EscapeKernel.ESCAPE_RADIUS2)
+                break;
+        }
+
+        return new ReferenceOrbit(cr, ci, zr, zi, abs2, n);
+    }
+}
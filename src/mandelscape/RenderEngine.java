@@ -0,0 +1,1563 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes escape iteration counts for every pixel of a MandelView.  The
+ * pixel grid is split into strips of rows which are computed on a
+ * work-stealing ForkJoinPool, so that all available cores are used.
+ *
+ * Alternatively, renderSubdivided() uses Mariani-Silver rectangle
+ * subdivision to avoid computing the interiors of rectangles whose borders
+ * share a single iteration count, and renderCached() assembles the frame
+ * from tiles held in a TileCache.
+ *
+ * Pixels are computed using the kernel matching the view's precision.
+ * Views at PERTURBATION precision must be rendered with renderPerturbed().
+ *
+ * @author agent <agent@local>
+ */
+public class RenderEngine {
+
+    /**
+     * Number of pixel rows below which a strip is no longer split.
+     */
+    private static final int STRIP_HEIGHT = 4;
+
+    /**
+     * Rectangles with fewer interior pixels than this are computed directly
+     * rather than subdivided further.
+     */
+    private static final int MIN_SUBDIVISION_AREA = 64;
+
+    private static final RowKernel ROW_KERNEL = EscapeKernel.getRowKernel();
+
+    private volatile ForkJoinPool pool;
+
+    /**
+     * Create a new engine using one worker thread per available core, or
+     * the number given by the mandelscape.threads system property if set.
+     */
+    public RenderEngine() {
+        this(Integer.getInteger("mandelscape.threads",
+            Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Create a new engine with the given number of worker threads.
+     *
+     * @param parallelism
+     */
+    public RenderEngine(int parallelism) {
+        pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    /**
+     * @return number of worker threads used to render.
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Change the number of worker threads used to render.  Renders already
+     * in progress complete on the old pool.
+     *
+     * @param parallelism
+     */
+    public void setParallelism(int parallelism) {
+        ForkJoinPool oldPool = pool;
+        pool = new ForkJoinPool(Math.max(1, parallelism));
+        oldPool.shutdown();
+    }
+
+    /**
+     * Compute the escape iteration count of every pixel in view using the
+     * worker pool.  Returns early, leaving iters partially filled, if job
+     * is cancelled.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     */
+    public void render(MandelView view, int[] iters, Cancellable job) {
+        render(view, iters, job, null);
+    }
+
+    /**
+     * Compute every pixel of view, recording the state of unfinished
+     * pixels.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     * @param recorder recorder of unfinished pixels, or null
+     */
+    void render(MandelView view, int[] iters, Cancellable job,
+        FrameRecorder recorder) {
+        renderPass(view, iters, job, 1, false, recorder);
+    }
+
+    /**
+     * Compute a reduced-resolution pass over view in which only pixels
+     * whose coordinates are both multiples of step are computed.  Each
+     * computed value is copied into the step x step block of pixels below
+     * and to the right of it, so that iters always holds a displayable
+     * frame.
+     *
+     * If refine is true, iters is assumed to already hold the result of
+     * a pass with twice this step, and the pixels computed by that pass
+     * are reused rather than recomputed.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     * @param step spacing between computed pixels
+     * @param refine whether iters holds the pass with step 2*step
+     */
+    public void renderPass(MandelView view, int[] iters, Cancellable job,
+        int step, boolean refine) {
+        renderPass(view, iters, job, step, refine, null);
+    }
+
+    /**
+     * Compute a reduced-resolution pass over view, recording the state of
+     * unfinished pixels.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     * @param step spacing between computed pixels
+     * @param refine whether iters holds the pass with step 2*step
+     * @param recorder recorder of unfinished pixels, or null
+     */
+    void renderPass(MandelView view, int[] iters, Cancellable job,
+        int step, boolean refine, FrameRecorder recorder) {
+        pool.invoke(new StripTask(view, iters, job, 0, view.height,
+            step, refine, recorder));
+    }
+
+    /**
+     * Compute the escape iteration counts of the pixels in columns xStart
+     * to xEnd-1 and rows yStart to yEnd-1, leaving the rest of iters
+     * untouched.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     * @param xStart
+     * @param xEnd
+     * @param yStart
+     * @param yEnd
+     */
+    public void renderRegion(MandelView view, int[] iters, Cancellable job,
+        int xStart, int xEnd, int yStart, int yEnd) {
+        renderRegion(view, iters, job, xStart, xEnd, yStart, yEnd, null);
+    }
+
+    private void renderRegion(MandelView view, int[] iters, Cancellable job,
+        int xStart, int xEnd, int yStart, int yEnd, FrameRecorder recorder) {
+        if (xStart >= xEnd || yStart >= yEnd)
+            return;
+
+        pool.invoke(new RegionTask(view, iters, job, xStart, xEnd, yStart,
+            yEnd, recorder));
+    }
+
+    /**
+     * Fill iters with the frame obtained by translating the frame baseIters
+     * by (shiftX, shiftY) pixels, so that pixel (x,y) takes the value of
+     * pixel (x-shiftX, y-shiftY) of the original.  Only the strips exposed
+     * by the translation are computed, so the cost is proportional to the
+     * shift rather than to the frame area.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     * @param baseIters iteration counts of a frame of the same dimensions
+     * @param shiftX horizontal translation in pixels
+     * @param shiftY vertical translation in pixels
+     */
+    public void renderShifted(MandelView view, int[] iters, Cancellable job,
+        int[] baseIters, int shiftX, int shiftY) {
+        renderShifted(view, iters, job, baseIters, shiftX, shiftY, null, null);
+    }
+
+    /**
+     * Fill iters by translating a base frame, recording the state of
+     * unfinished pixels.  The state of pixels copied from the base frame
+     * is taken from baseState if it is given.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     * @param baseIters iteration counts of a frame of the same dimensions
+     * @param shiftX horizontal translation in pixels
+     * @param shiftY vertical translation in pixels
+     * @param baseState resumable state of the base frame, or null
+     * @param recorder recorder of unfinished pixels, or null
+     */
+    void renderShifted(MandelView view, int[] iters, Cancellable job,
+        int[] baseIters, int shiftX, int shiftY, ResumeState baseState,
+        FrameRecorder recorder) {
+        int w = view.width;
+        int h = view.height;
+
+        // Range of pixels which are covered by the translated frame
+        int xa = Math.max(0, shiftX), xb = Math.min(w, w + shiftX);
+        int ya = Math.max(0, shiftY), yb = Math.min(h, h + shiftY);
+
+        if (xa < xb) {
+            for (int y=ya; y<yb; y++)
+                System.arraycopy(baseIters, (y - shiftY)*w + xa - shiftX,
+                    iters, y*w + xa, xb - xa);
+        }
+
+        if (recorder != null && baseState != null
+            && baseState.knownIters == baseIters)
+            recorder.addTranslated(baseState, shiftX, shiftY);
+
+        renderRegion(view, iters, job, 0, w, 0, ya, recorder);
+        renderRegion(view, iters, job, 0, w, yb, h, recorder);
+        renderRegion(view, iters, job, 0, xa, ya, yb, recorder);
+        renderRegion(view, iters, job, xb, w, ya, yb, recorder);
+    }
+
+    /**
+     * Fill iters with the counts for view, which must cover the same
+     * region as base but with a larger maxIter, by continuing the
+     * iteration of the pixels which base lists as unfinished.  The cost is
+     * proportional to the increase in maxIter rather than to maxIter.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     * @param base state to continue from
+     * @return state of the new frame, or null if job was cancelled
+     */
+    public ResumeState renderResumed(MandelView view, int[] iters,
+        Cancellable job, ResumeState base) {
+        return renderResumed(view, iters, job, base, null);
+    }
+
+    /**
+     * Fill iters by continuing the iteration of base, counting the
+     * iterations performed.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     * @param base state to continue from
+     * @param recorder recorder in which to count iterations, or null
+     * @return state of the new frame, or null if job was cancelled
+     */
+    ResumeState renderResumed(MandelView view, int[] iters, Cancellable job,
+        ResumeState base, FrameRecorder recorder) {
+        int n = base.pixels.length;
+        int[] result = new int[n];
+        double[] zr = base.zr.clone();
+        double[] zi = base.zi.clone();
+
+        pool.invoke(new ResumeTask(base, view.maxIter, result, zr, zi, job,
+            0, n));
+        if (job.isCancelled())
+            return null;
+
+        System.arraycopy(base.knownIters, 0, iters, 0, iters.length);
+
+        if (recorder != null) {
+            FrameRecorder.Segment segment = new FrameRecorder.Segment();
+            for (int k=0; k<n; k++)
+                segment.count(result[k], base.iterDone[k]);
+            recorder.add(segment);
+        }
+
+        int unfinished = 0;
+        for (int k=0; k<n; k++) {
+            if (result[k] == -1)
+                unfinished += 1;
+            else
+                iters[base.pixels[k]] = result[k] == EscapeKernel.INTERIOR
+                    ? -1 : result[k];
+        }
+
+        int[] pixels = new int[unfinished];
+        int[] iterDone = new int[unfinished];
+        double[] cr = new double[unfinished];
+        double[] ci = new double[unfinished];
+        double[] zrLeft = new double[unfinished];
+        double[] ziLeft = new double[unfinished];
+
+        int m = 0;
+        for (int k=0; k<n; k++) {
+            if (result[k] == -1) {
+                pixels[m] = base.pixels[k];
+                iterDone[m] = view.maxIter;
+                cr[m] = base.cr[k];
+                ci[m] = base.ci[k];
+                zrLeft[m] = zr[k];
+                ziLeft[m] = zi[k];
+                m += 1;
+            }
+        }
+
+        return new ResumeState(view, iters, pixels, iterDone, cr, ci,
+            zrLeft, ziLeft);
+    }
+
+    /**
+     * Fill iters using Mariani-Silver subdivision: only the border of a
+     * rectangle is computed, and if every border pixel has the same
+     * iteration count the interior is filled with that count.  Otherwise
+     * the rectangle is split in two along its longer side and each half is
+     * treated in the same way.  Since the set is connected, this is exact
+     * for regions of the interior and gives large savings whenever the view
+     * contains parts of the main cardioid or broad escape bands.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     */
+    public void renderSubdivided(MandelView view, int[] iters, Cancellable job) {
+        renderSubdivided(view, iters, job, null);
+    }
+
+    /**
+     * Fill iters using Mariani-Silver subdivision, recording the state of
+     * unfinished pixels which are computed.  Filled pixels are not
+     * recorded.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     * @param recorder recorder of unfinished pixels, or null
+     */
+    void renderSubdivided(final MandelView view, final int[] iters,
+        Cancellable job, FrameRecorder recorder) {
+        int xLast = view.width - 1;
+        int yLast = view.height - 1;
+        if (xLast < 0 || yLast < 0)
+            return;
+
+        PixelGrid grid = new PixelGrid(iters, view.width) {
+            @Override
+            void computePixel(int x, int y, FrameRecorder.Segment segment) {
+                RenderEngine.computePixel(view, iters, x, y, segment);
+            }
+        };
+
+        grid.computeBorder(xLast, yLast, recorder);
+        pool.invoke(new RectangleTask(grid, job, 0, 0, xLast, yLast,
+            recorder));
+    }
+
+    /**
+     * Fill iters from tiles held in cache, computing and caching any tiles
+     * which are missing.  The view is snapped onto the cache's tile grid:
+     * the pixel scale is rounded to the nearest discrete level and the
+     * top-left pixel to the nearest grid point, which moves samples by at
+     * most half a pixel.  Only FLOAT and DOUBLE precision views can be
+     * cached, as tile coordinates are computed in double precision.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     * @param cache tile cache to read from and add to
+     */
+    public void renderCached(MandelView view, int[] iters, Cancellable job,
+        TileCache cache) {
+        renderCached(view, iters, job, cache, null);
+    }
+
+    /**
+     * Fill iters from tiles held in an in-memory cache or a persistent
+     * store, computing any tiles which are missing from both.  Tiles read
+     * from the store are copied directly into the frame; computed tiles
+     * are added to the cache and queued for writing to the store.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     * @param cache tile cache to read from and add to, or null
+     * @param store tile store to read from and add to, or null
+     */
+    public void renderCached(MandelView view, int[] iters, Cancellable job,
+        TileCache cache, TileStore store) {
+        renderCached(view, iters, job, cache, store, null, false, 1, null);
+    }
+
+    /**
+     * Fill iters from tiles held in a cache or store, computing any tiles
+     * which are missing from both, and recording the state of unfinished
+     * pixels.  Pixels of tiles which are not computed are recorded with
+     * no iterations done, at their sample point in the tile.
+     *
+     * Missing tiles are computed either by rectangle subdivision, or in
+     * passes of decreasing step as renderPass() computes a frame, in which
+     * case listener is told of each coarse pass once the frame holds it.
+     * Tiles are only cached once they are complete.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     * @param cache tile cache to read from and add to, or null
+     * @param store tile store to read from and add to, or null
+     * @param recorder recorder of unfinished pixels, or null
+     * @param subdividing whether to compute missing tiles by subdivision
+     * @param coarsestStep step of the first pass over missing tiles
+     * @param listener listener for coarse passes, or null
+     */
+    void renderCached(MandelView view, int[] iters, Cancellable job,
+        TileCache cache, TileStore store, FrameRecorder recorder,
+        boolean subdividing, int coarsestStep, PassListener listener) {
+        if (view.width == 0 || view.height == 0)
+            return;
+
+        long levelX = TileCache.getScaleLevel(view.pixelWidth);
+        long levelY = TileCache.getScaleLevel(view.pixelHeight);
+        double scaleX = TileCache.getLevelScale(levelX);
+        double scaleY = TileCache.getLevelScale(levelY);
+
+        // Global grid coordinates of the view's top-left pixel
+        long gx0 = Math.round(view.crMin/scaleX);
+        long gy0 = Math.round(view.ciMin/scaleY);
+
+        int ts = TileCache.TILE_SIZE;
+        long txStart = Math.floorDiv(gx0, ts);
+        long txEnd = Math.floorDiv(gx0 + view.width - 1, ts);
+        long tyStart = Math.floorDiv(gy0, ts);
+        long tyEnd = Math.floorDiv(gy0 + view.height - 1, ts);
+
+        // The view's seed depends only on its scale, and jitter only on
+        // the seed and grid position, so tiles are identical however they
+        // come to be computed
+        long seed = view.seed;
+
+        List<Tile> missing = new ArrayList<Tile>();
+        for (long tx=txStart; tx<=txEnd; tx++) {
+            for (long ty=tyStart; ty<=tyEnd; ty++) {
+                TileCache.Key key = new TileCache.Key(levelX, levelY, tx, ty,
+                    view.maxIter, view.precision.kernelId);
+                Tile tile = new Tile(key, scaleX, scaleY, seed, gx0, gy0,
+                    view, iters, cache, store, recorder);
+                if (!tile.copyKnown())
+                    missing.add(tile);
+            }
+        }
+
+        if (subdividing)
+            invokeTiles(missing, job, 0, false);
+        else {
+            for (int step=coarsestStep; step>=1 && !missing.isEmpty(); step/=2) {
+                invokeTiles(missing, job, step, step < coarsestStep);
+                if (job.isCancelled())
+                    return;
+
+                if (step > 1 && listener != null)
+                    listener.passCompleted(step);
+            }
+        }
+    }
+
+    /**
+     * Compute a pass over each of the given tiles.
+     *
+     * @param tiles
+     * @param job job on whose behalf the render is performed
+     * @param step spacing between computed pixels, or 0 to compute the
+     * tiles by rectangle subdivision
+     * @param refine whether the tiles hold the pass with step 2*step
+     */
+    private void invokeTiles(List<Tile> tiles, Cancellable job, int step,
+        boolean refine) {
+        final List<TileTask> tasks = new ArrayList<TileTask>();
+        for (Tile tile : tiles)
+            tasks.add(new TileTask(tile, job, step, refine));
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * Compute the escape iteration count of every pixel in view by
+     * perturbation around an arbitrary precision reference orbit, whatever
+     * the view's precision.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     */
+    public void renderPerturbed(MandelView view, int[] iters, Cancellable job) {
+        renderPerturbed(view, iters, job, null);
+    }
+
+    /**
+     * Compute every pixel of view by perturbation, counting the
+     * iterations performed.  No state is recorded, as perturbed frames
+     * cannot be resumed.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     * @param recorder recorder in which to count iterations, or null
+     */
+    void renderPerturbed(MandelView view, int[] iters, Cancellable job,
+        FrameRecorder recorder) {
+        new PerturbationRenderer(view).render(pool, iters, job);
+
+        if (recorder != null) {
+            FrameRecorder.Segment segment = new FrameRecorder.Segment();
+            for (int i=0; i<iters.length; i++)
+                segment.count(iters[i], 0);
+            recorder.add(segment);
+        }
+    }
+
+    /**
+     * Supersample the edge pixels of a completed frame: those whose
+     * iteration counts differ from a neighbour's by more than threshold
+     * are each sampled on a samplesPerAxis x samplesPerAxis grid.  Views
+     * needing perturbation are not supported.
+     *
+     * @param view view from which iters was computed
+     * @param iters row-major iteration counts of the frame
+     * @param job job on whose behalf the render is performed
+     * @param samplesPerAxis
+     * @param threshold
+     * @return samples, or null if job was cancelled
+     */
+    public EdgeSamples renderEdgeSamples(MandelView view, int[] iters,
+        Cancellable job, int samplesPerAxis, int threshold) {
+        return renderEdgeSamples(view, iters, job, samplesPerAxis, threshold,
+            null);
+    }
+
+    /**
+     * Supersample the edge pixels of a completed frame, reusing the
+     * samples of an earlier frame where possible.  If base was computed
+     * from a pixel translation of view (see EdgeSamples.isReusableFor()),
+     * edge pixels which base also sampled take their samples from it, and
+     * only the remaining ones are computed.
+     *
+     * @param view view from which iters was computed
+     * @param iters row-major iteration counts of the frame
+     * @param job job on whose behalf the render is performed
+     * @param samplesPerAxis
+     * @param threshold
+     * @param base samples of an earlier frame, or null
+     * @return samples, or null if job was cancelled
+     */
+    public EdgeSamples renderEdgeSamples(MandelView view, int[] iters,
+        Cancellable job, int samplesPerAxis, int threshold,
+        EdgeSamples base) {
+        if (view.precision == Precision.PERTURBATION)
+            throw new IllegalArgumentException("Edge samples cannot be "
+                + "computed by perturbation.");
+
+        int[] pixels = EdgeSamples.findEdges(view, iters, threshold);
+        int count = samplesPerAxis*samplesPerAxis;
+        int[] samples = new int[pixels.length*count];
+
+        if (base != null && !base.isReusableFor(view, samplesPerAxis))
+            base = null;
+
+        // Indices of the pixels whose samples must be computed
+        int[] missing = new int[pixels.length];
+        int m = 0;
+        int shiftX = base != null ? view.getShiftX(base.view) : 0;
+        int shiftY = base != null ? view.getShiftY(base.view) : 0;
+        for (int k=0; k<pixels.length; k++) {
+            int x = pixels[k] % view.width - shiftX;
+            int y = pixels[k] / view.width - shiftY;
+            int j = -1;
+            if (base != null && x >= 0 && x < view.width
+                && y >= 0 && y < view.height)
+                j = base.indexOf(y*view.width + x);
+
+            if (j >= 0)
+                System.arraycopy(base.iters, j*count, samples, k*count, count);
+            else
+                missing[m++] = k;
+        }
+
+        pool.invoke(new SampleTask(view, pixels, missing, samplesPerAxis,
+            samples, job, 0, m));
+        if (job.isCancelled())
+            return null;
+
+        return new EdgeSamples(view, samplesPerAxis, pixels, samples);
+    }
+
+    /**
+     * Compute the escape iteration count of every pixel in view on the
+     * calling thread.  Produces the same result as render().
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     */
+    public static void renderSerial(MandelView view, int[] iters, Cancellable job) {
+        for (int y=0; y<view.height; y++) {
+            if (job.isCancelled())
+                return;
+
+            renderRow(view, iters, y, 0, view.width, null);
+        }
+    }
+
+    /**
+     * Compute the escape iteration counts of the width x height block of
+     * pixels of view whose top left pixel is (x0,y0) on the calling
+     * thread, storing them in a separate array.  Produces the same values
+     * as render() does for those pixels.  Views needing perturbation are
+     * not supported.
+     *
+     * @param view view to render
+     * @param x0 column of the left edge of the block
+     * @param y0 row of the top edge of the block
+     * @param width
+     * @param height
+     * @param dest row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     */
+    public static void renderBlock(MandelView view, int x0, int y0,
+        int width, int height, int[] dest, Cancellable job) {
+        if (view.precision == Precision.PERTURBATION)
+            throw new IllegalArgumentException("Blocks cannot be computed "
+                + "by perturbation.");
+
+        int[] xs = new int[width];
+        for (int k=0; k<width; k++)
+            xs[k] = x0 + k;
+
+        int[] results = new int[width];
+        for (int y=0; y<height; y++) {
+            if (job.isCancelled())
+                return;
+
+            getEscapeIters(view, y0 + y, xs, width, results, null);
+            System.arraycopy(results, 0, dest, y*width, width);
+        }
+    }
+
+    /**
+     * Compute the escape iteration count of a single pixel.
+     *
+     * @param view
+     * @param iters
+     * @param x
+     * @param y
+     * @param segment segment in which to record the pixel if unfinished,
+     * or null
+     */
+    private static void computePixel(MandelView view, int[] iters, int x,
+        int y, FrameRecorder.Segment segment) {
+        int pixel = y*view.width + x;
+        if (segment == null) {
+            iters[pixel] = getEscapeIters(view, x, y);
+            return;
+        }
+
+        if (view.precision != Precision.DOUBLE) {
+            iters[pixel] = getEscapeIters(view, x, y);
+            segment.count(iters[pixel], 0);
+            return;
+        }
+
+        double cr = view.getRealJittered(x, y, 0.1);
+        double ci = view.getImagJittered(x, y, 0.1);
+        double[] z = new double[2];
+        int iter = EscapeKernel.resumeEscapeIters(cr, ci, z, 0, view.maxIter);
+        segment.count(iter, 0);
+        if (iter == EscapeKernel.INTERIOR) {
+            segment.addInterior(pixel);
+            iter = -1;
+        } else if (iter < 0)
+            segment.add(pixel, cr, ci, z[0], z[1], view.maxIter);
+
+        iters[pixel] = iter;
+    }
+
+    /**
+     * Compute the escape iteration count of a jittered sample of pixel
+     * (x,y) using the kernel for the view's precision.
+     *
+     * @param view
+     * @param x
+     * @param y
+     * @return escape iteration count, or -1
+     */
+    private static int getEscapeIters(MandelView view, int x, int y) {
+        switch (view.precision) {
+            case FLOAT:
+                return FloatKernel.getEscapeIters(
+                    (float)view.getRealJittered(x, y, 0.1),
+                    (float)view.getImagJittered(x, y, 0.1), view.maxIter);
+
+            case DOUBLE_DOUBLE:
+                return DoubleDoubleKernel.getEscapeIters(
+                    view.centreRealHi, view.centreRealLo,
+                    view.getRealOffset(x + view.getJitterX(x, y, 0.1)),
+                    view.centreImagHi, view.centreImagLo,
+                    view.getImagOffset(y + view.getJitterY(x, y, 0.1)),
+                    view.maxIter);
+
+            default:
+                return EscapeKernel.getEscapeIters(
+                    view.getRealJittered(x, y, 0.1), view.getImagJittered(x, y, 0.1),
+                    view.maxIter);
+        }
+    }
+
+    /**
+     * Compute the escape iteration counts for columns xStart to xEnd-1 of
+     * a single row of pixels.
+     *
+     * @param view
+     * @param iters
+     * @param y
+     * @param xStart
+     * @param xEnd
+     * @param segment segment in which to record unfinished pixels, or null
+     */
+    private static void renderRow(MandelView view, int[] iters, int y,
+        int xStart, int xEnd, FrameRecorder.Segment segment) {
+        int n = xEnd - xStart;
+        int[] xs = new int[n];
+        for (int k=0; k<n; k++)
+            xs[k] = xStart + k;
+
+        int[] results = new int[n];
+        getEscapeIters(view, y, xs, n, results, segment);
+        System.arraycopy(results, 0, iters, y*view.width + xStart, n);
+    }
+
+    /**
+     * Compute the escape iteration counts of jittered samples of pixels
+     * (xs[k], y) for k from 0 to n-1, storing them in results[k].  Double
+     * precision samples are computed together by the row kernel, and
+     * those which remain unfinished are recorded in segment if given.
+     *
+     * @param view
+     * @param y
+     * @param xs
+     * @param n
+     * @param results
+     * @param segment segment in which to record unfinished pixels, or null
+     */
+    private static void getEscapeIters(MandelView view, int y, int[] xs,
+        int n, int[] results, FrameRecorder.Segment segment) {
+        if (view.precision == Precision.DOUBLE) {
+            double[] cr = new double[n];
+            double[] ci = new double[n];
+            for (int k=0; k<n; k++) {
+                cr[k] = view.getRealJittered(xs[k], y, 0.1);
+                ci[k] = view.getImagJittered(xs[k], y, 0.1);
+            }
+
+            if (segment == null) {
+                ROW_KERNEL.getEscapeIters(cr, ci, n, view.maxIter, results, 0,
+                    null, null);
+                return;
+            }
+
+            double[] zr = new double[n];
+            double[] zi = new double[n];
+            ROW_KERNEL.getEscapeIters(cr, ci, n, view.maxIter, results, 0,
+                zr, zi);
+            for (int k=0; k<n; k++) {
+                segment.count(results[k], 0);
+                if (results[k] < 0)
+                    segment.add(y*view.width + xs[k], cr[k], ci[k], zr[k],
+                        zi[k], view.maxIter);
+            }
+        } else {
+            for (int k=0; k<n; k++) {
+                results[k] = getEscapeIters(view, xs[k], y);
+                if (segment != null)
+                    segment.count(results[k], 0);
+            }
+        }
+    }
+
+    /**
+     * Compute every step'th pixel of row y, filling the step x step
+     * blocks they head.  When refine is set, pixels which head a block of
+     * the previous (2*step) pass are already known and are not recomputed.
+     *
+     * @param view
+     * @param iters
+     * @param y
+     * @param step
+     * @param refine
+     * @param segment segment in which to record unfinished pixels, or null
+     */
+    private static void renderRow(MandelView view, int[] iters, int y,
+        int step, boolean refine, FrameRecorder.Segment segment) {
+        if (step == 1 && !refine) {
+            renderRow(view, iters, y, 0, view.width, segment);
+            return;
+        }
+
+        int w = view.width;
+        int yBlockEnd = Math.min(y + step, view.height);
+        boolean reusableRow = refine && y % (2*step) == 0;
+
+        int[] xs = new int[(w + step - 1)/step];
+        int n = 0;
+        for (int x=0; x<w; x+=step) {
+            if (!reusableRow || x % (2*step) != 0)
+                xs[n++] = x;
+        }
+        int[] results = new int[n];
+        getEscapeIters(view, y, xs, n, results, segment);
+
+        int k = 0;
+        for (int x=0; x<w; x+=step) {
+            int value;
+            if (reusableRow && x % (2*step) == 0)
+                value = iters[y*w + x];
+            else
+                value = results[k++];
+
+            int xBlockEnd = Math.min(x + step, w);
+            for (int yp=y; yp<yBlockEnd; yp++) {
+                int offset = yp*w;
+                for (int xp=x; xp<xBlockEnd; xp++)
+                    iters[offset + xp] = value;
+            }
+        }
+    }
+
+    /**
+     * Fork/join task which renders a contiguous range of rows, splitting
+     * it in half until strips are narrow enough to compute directly.  Only
+     * rows which are multiples of step are computed by the task; the blocks
+     * they head never overlap those of other strips.
+     */
+    @SuppressWarnings("serial")
+    private static class StripTask extends RecursiveAction {
+
+        private final MandelView view;
+        private final int[] iters;
+        private final Cancellable job;
+        private final int yStart, yEnd;
+        private final int step;
+        private final boolean refine;
+        private final FrameRecorder recorder;
+
+        StripTask(MandelView view, int[] iters, Cancellable job,
+            int yStart, int yEnd, int step, boolean refine,
+            FrameRecorder recorder) {
+            this.view = view;
+            this.iters = iters;
+            this.job = job;
+            this.yStart = yStart;
+            this.yEnd = yEnd;
+            this.step = step;
+            this.refine = refine;
+            this.recorder = recorder;
+        }
+
+        @Override
+        protected void compute() {
+            if (job.isCancelled())
+                return;
+
+            if (yEnd - yStart <= STRIP_HEIGHT*step) {
+                FrameRecorder.Segment segment = recorder != null
+                    ? new FrameRecorder.Segment() : null;
+                int yFirst = ((yStart + step - 1)/step)*step;
+                for (int y=yFirst; y<yEnd; y+=step)
+                    renderRow(view, iters, y, step, refine, segment);
+                if (recorder != null)
+                    recorder.add(segment);
+                return;
+            }
+
+            int yMid = (yStart + yEnd) >>> 1;
+            invokeAll(new StripTask(view, iters, job, yStart, yMid, step,
+                    refine, recorder),
+                new StripTask(view, iters, job, yMid, yEnd, step, refine,
+                    recorder));
+        }
+    }
+
+    /**
+     * Fork/join task which renders a rectangular region of the frame,
+     * splitting it into strips of rows.
+     */
+    @SuppressWarnings("serial")
+    private static class RegionTask extends RecursiveAction {
+
+        private final MandelView view;
+        private final int[] iters;
+        private final Cancellable job;
+        private final int xStart, xEnd, yStart, yEnd;
+        private final FrameRecorder recorder;
+
+        RegionTask(MandelView view, int[] iters, Cancellable job,
+            int xStart, int xEnd, int yStart, int yEnd,
+            FrameRecorder recorder) {
+            this.view = view;
+            this.iters = iters;
+            this.job = job;
+            this.xStart = xStart;
+            this.xEnd = xEnd;
+            this.yStart = yStart;
+            this.yEnd = yEnd;
+            this.recorder = recorder;
+        }
+
+        @Override
+        protected void compute() {
+            if (job.isCancelled())
+                return;
+
+            if (yEnd - yStart <= STRIP_HEIGHT) {
+                FrameRecorder.Segment segment = recorder != null
+                    ? new FrameRecorder.Segment() : null;
+                for (int y=yStart; y<yEnd; y++)
+                    renderRow(view, iters, y, xStart, xEnd, segment);
+                if (recorder != null)
+                    recorder.add(segment);
+                return;
+            }
+
+            int yMid = (yStart + yEnd) >>> 1;
+            invokeAll(new RegionTask(view, iters, job, xStart, xEnd, yStart,
+                    yMid, recorder),
+                new RegionTask(view, iters, job, xStart, xEnd, yMid, yEnd,
+                    recorder));
+        }
+    }
+
+    /**
+     * Receives the coarse passes of a progressive render as they complete.
+     */
+    interface PassListener {
+
+        /**
+         * Called on the rendering thread once the frame holds a pass.
+         *
+         * @param step spacing between computed pixels of the pass
+         */
+        void passCompleted(int step);
+    }
+
+    /**
+     * Row-major grid of escape iteration counts which can be computed one
+     * pixel at a time, as rectangle subdivision requires.
+     */
+    private abstract static class PixelGrid {
+
+        final int[] iters;
+        final int width;
+
+        PixelGrid(int[] iters, int width) {
+            this.iters = iters;
+            this.width = width;
+        }
+
+        /**
+         * Compute the escape iteration count of pixel (x,y) and store it
+         * in iters.
+         *
+         * @param x
+         * @param y
+         * @param segment segment in which to record the pixel if unfinished,
+         * or null
+         */
+        abstract void computePixel(int x, int y, FrameRecorder.Segment segment);
+
+        /**
+         * Compute the border of the rectangle with corners (0,0) and
+         * (xLast,yLast), as needed before subdividing it.
+         *
+         * @param xLast
+         * @param yLast
+         * @param recorder recorder of unfinished pixels, or null
+         */
+        void computeBorder(int xLast, int yLast, FrameRecorder recorder) {
+            FrameRecorder.Segment segment = recorder != null
+                ? new FrameRecorder.Segment() : null;
+            for (int x=0; x<=xLast; x++) {
+                computePixel(x, 0, segment);
+                computePixel(x, yLast, segment);
+            }
+            for (int y=1; y<yLast; y++) {
+                computePixel(0, y, segment);
+                computePixel(xLast, y, segment);
+            }
+            if (recorder != null)
+                recorder.add(segment);
+        }
+    }
+
+    /**
+     * Fork/join task which fills the interior of the rectangle with
+     * corners (x0,y0) and (x1,y1), whose border pixels have already been
+     * computed.
+     */
+    @SuppressWarnings("serial")
+    private static class RectangleTask extends RecursiveAction {
+
+        private final PixelGrid grid;
+        private final Cancellable job;
+        private final int x0, y0, x1, y1;
+        private final FrameRecorder recorder;
+
+        RectangleTask(PixelGrid grid, Cancellable job,
+            int x0, int y0, int x1, int y1, FrameRecorder recorder) {
+            this.grid = grid;
+            this.job = job;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.recorder = recorder;
+        }
+
+        @Override
+        protected void compute() {
+            if (job.isCancelled())
+                return;
+
+            // Nothing to do if the border is all there is
+            if (x1 - x0 < 2 || y1 - y0 < 2)
+                return;
+
+            int[] iters = grid.iters;
+            int w = grid.width;
+            int value = iters[y0*w + x0];
+
+            if (isBorderUniform(value)) {
+                for (int y=y0+1; y<y1; y++) {
+                    int offset = y*w;
+                    for (int x=x0+1; x<x1; x++)
+                        iters[offset + x] = value;
+                }
+                return;
+            }
+
+            FrameRecorder.Segment segment = recorder != null
+                ? new FrameRecorder.Segment() : null;
+
+            if ((x1 - x0 - 1)*(y1 - y0 - 1) <= MIN_SUBDIVISION_AREA) {
+                for (int y=y0+1; y<y1; y++)
+                    for (int x=x0+1; x<x1; x++)
+                        grid.computePixel(x, y, segment);
+                if (recorder != null)
+                    recorder.add(segment);
+                return;
+            }
+
+            // Compute the dividing line, which becomes part of the
+            // border of both halves
+            if (x1 - x0 >= y1 - y0) {
+                int xm = (x0 + x1) >>> 1;
+                for (int y=y0+1; y<y1; y++)
+                    grid.computePixel(xm, y, segment);
+                if (recorder != null)
+                    recorder.add(segment);
+
+                invokeAll(new RectangleTask(grid, job, x0, y0, xm, y1, recorder),
+                    new RectangleTask(grid, job, xm, y0, x1, y1, recorder));
+            } else {
+                int ym = (y0 + y1) >>> 1;
+                for (int x=x0+1; x<x1; x++)
+                    grid.computePixel(x, ym, segment);
+                if (recorder != null)
+                    recorder.add(segment);
+
+                invokeAll(new RectangleTask(grid, job, x0, y0, x1, ym, recorder),
+                    new RectangleTask(grid, job, x0, ym, x1, y1, recorder));
+            }
+        }
+
+        /**
+         * @param value
+         * @return true if every border pixel has iteration count value.
+         */
+        private boolean isBorderUniform(int value) {
+            int[] iters = grid.iters;
+            int w = grid.width;
+
+            for (int x=x0; x<=x1; x++) {
+                if (iters[y0*w + x] != value || iters[y1*w + x] != value)
+                    return false;
+            }
+            for (int y=y0+1; y<y1; y++) {
+                if (iters[y*w + x0] != value || iters[y*w + x1] != value)
+                    return false;
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * A single tile of a cached render together with the part of the frame
+     * which it overlaps.  Tiles missing from the cache and store are
+     * computed into a grid of their own, and the frame is filled from it
+     * after every pass.
+     */
+    private static final class Tile extends PixelGrid {
+
+        private final TileCache.Key key;
+        private final double scaleX, scaleY;
+        private final long seed;
+        private final long tileGx, tileGy;
+        private final long gx0, gy0;
+        private final MandelView view;
+        private final int[] frame;
+        private final TileCache cache;
+        private final TileStore store;
+        private final FrameRecorder recorder;
+
+        /**
+         * Overlap of tile and view, in view and in tile pixels.
+         */
+        private final int xStart, xEnd, yStart, yEnd, i0, j0;
+
+        Tile(TileCache.Key key, double scaleX, double scaleY, long seed,
+            long gx0, long gy0, MandelView view, int[] frame,
+            TileCache cache, TileStore store, FrameRecorder recorder) {
+            super(new int[TileCache.TILE_SIZE*TileCache.TILE_SIZE],
+                TileCache.TILE_SIZE);
+            this.key = key;
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+            this.seed = seed;
+            this.gx0 = gx0;
+            this.gy0 = gy0;
+            this.view = view;
+            this.frame = frame;
+            this.cache = cache;
+            this.store = store;
+            this.recorder = recorder;
+
+            int ts = TileCache.TILE_SIZE;
+            tileGx = key.tileX*ts;
+            tileGy = key.tileY*ts;
+            xStart = (int)Math.max(0, tileGx - gx0);
+            xEnd = (int)Math.min(view.width, tileGx + ts - gx0);
+            yStart = (int)Math.max(0, tileGy - gy0);
+            yEnd = (int)Math.min(view.height, tileGy + ts - gy0);
+            i0 = (int)(gx0 + xStart - tileGx);
+            j0 = (int)(gy0 + yStart - tileGy);
+        }
+
+        /**
+         * Fill the overlap from the cache or store if either holds the
+         * tile.  Unfinished pixels are recorded as starting from z=0.
+         *
+         * @return true if the tile was found
+         */
+        boolean copyKnown() {
+            int[] tile = cache != null ? cache.get(key) : null;
+            if (tile != null) {
+                for (int y=yStart; y<yEnd; y++) {
+                    System.arraycopy(tile, (j0 + y - yStart)*width + i0,
+                        frame, y*view.width + xStart, xEnd - xStart);
+                }
+            } else if (store == null
+                || !store.read(key, i0, j0, xEnd - xStart, yEnd - yStart,
+                    frame, yStart*view.width + xStart, view.width))
+                return false;
+
+            if (recorder != null) {
+                FrameRecorder.Segment segment = new FrameRecorder.Segment();
+                for (int y=yStart; y<yEnd; y++) {
+                    for (int x=xStart; x<xEnd; x++) {
+                        if (frame[y*view.width + x] >= 0)
+                            continue;
+
+                        long gx = gx0 + x, gy = gy0 + y;
+                        segment.add(y*view.width + x, getReal(gx, gy),
+                            getImag(gx, gy), 0, 0, 0);
+                    }
+                }
+                recorder.add(segment);
+            }
+
+            return true;
+        }
+
+        /**
+         * Compute the pixels of the tile whose coordinates are both
+         * multiples of step, and fill the step x step blocks of the
+         * overlap which they head.  The tile is cached once the pass with
+         * step 1 is complete.
+         *
+         * @param job job on whose behalf the render is performed
+         * @param step spacing between computed pixels
+         * @param refine whether the tile holds the pass with step 2*step
+         */
+        void computePass(Cancellable job, int step, boolean refine) {
+            int ts = width;
+            int[] is = new int[ts];
+            int[] results = new int[ts];
+            double[] cr = new double[ts];
+            double[] ci = new double[ts];
+            double[] zr = null, zi = null;
+            if (recorder != null && view.precision != Precision.FLOAT) {
+                zr = new double[ts];
+                zi = new double[ts];
+            }
+            FrameRecorder.Segment segment = recorder != null
+                ? new FrameRecorder.Segment() : null;
+
+            for (int j=0; j<ts; j+=step) {
+                if (job.isCancelled())
+                    return;
+
+                boolean reusableRow = refine && j % (2*step) == 0;
+                int n = 0;
+                for (int i=0; i<ts; i+=step) {
+                    if (!reusableRow || i % (2*step) != 0)
+                        is[n++] = i;
+                }
+
+                long gy = tileGy + j;
+                for (int k=0; k<n; k++) {
+                    long gx = tileGx + is[k];
+                    cr[k] = getReal(gx, gy);
+                    ci[k] = getImag(gx, gy);
+                }
+
+                if (view.precision == Precision.FLOAT) {
+                    for (int k=0; k<n; k++)
+                        results[k] = FloatKernel.getEscapeIters(
+                            (float)cr[k], (float)ci[k], key.maxIter);
+                } else
+                    ROW_KERNEL.getEscapeIters(cr, ci, n, key.maxIter, results,
+                        0, zr, zi);
+
+                for (int k=0; k<n; k++) {
+                    iters[j*ts + is[k]] = results[k];
+                    if (segment == null)
+                        continue;
+
+                    segment.count(results[k], 0);
+                    if (zr != null && results[k] < 0)
+                        record(segment, is[k], j, cr[k], ci[k], zr[k], zi[k]);
+                }
+            }
+            if (recorder != null)
+                recorder.add(segment);
+
+            if (step == 1)
+                save();
+            fillFrame(step);
+        }
+
+        /**
+         * Compute the tile by rectangle subdivision, then save it and
+         * copy it into the frame.
+         *
+         * @param job job on whose behalf the render is performed
+         */
+        void computeSubdivided(Cancellable job) {
+            int last = width - 1;
+            computeBorder(last, last, recorder);
+            new RectangleTask(this, job, 0, 0, last, last, recorder).invoke();
+            if (job.isCancelled())
+                return;
+
+            save();
+            fillFrame(1);
+        }
+
+        @Override
+        void computePixel(int i, int j, FrameRecorder.Segment segment) {
+            long gx = tileGx + i, gy = tileGy + j;
+            double cr = getReal(gx, gy);
+            double ci = getImag(gx, gy);
+
+            int iter;
+            if (view.precision == Precision.FLOAT)
+                iter = FloatKernel.getEscapeIters((float)cr, (float)ci,
+                    key.maxIter);
+            else {
+                double[] z = new double[2];
+                iter = EscapeKernel.resumeEscapeIters(cr, ci, z, 0,
+                    key.maxIter);
+                if (segment != null && iter == EscapeKernel.INTERIOR)
+                    record(segment, i, j, cr, ci, Double.NaN, Double.NaN);
+                else if (segment != null && iter < 0)
+                    record(segment, i, j, cr, ci, z[0], z[1]);
+            }
+
+            if (segment != null)
+                segment.count(iter, 0);
+            iters[j*width + i] = iter < 0 ? -1 : iter;
+        }
+
+        /**
+         * Record unfinished tile pixel (i,j) if it lies in the overlap.
+         */
+        private void record(FrameRecorder.Segment segment, int i, int j,
+            double cr, double ci, double zr, double zi) {
+            int x = (int)(tileGx + i - gx0), y = (int)(tileGy + j - gy0);
+            if (x >= xStart && x < xEnd && y >= yStart && y < yEnd)
+                segment.add(y*view.width + x, cr, ci, zr, zi, key.maxIter);
+        }
+
+        private double getReal(long gx, long gy) {
+            return (gx + MandelView.jitter(seed, gx, gy, 0, 0.1))*scaleX;
+        }
+
+        private double getImag(long gx, long gy) {
+            return (gy + MandelView.jitter(seed, gx, gy, 1, 0.1))*scaleY;
+        }
+
+        /**
+         * Add the completed tile to the cache and store.
+         */
+        private void save() {
+            if (cache != null)
+                cache.put(key, iters);
+            if (store != null)
+                store.putAsync(key, iters);
+        }
+
+        /**
+         * Copy the overlap into the frame, replicating each computed pixel
+         * over the step x step block it heads.
+         *
+         * @param step
+         */
+        private void fillFrame(int step) {
+            for (int y=yStart; y<yEnd; y++) {
+                int j = j0 + y - yStart;
+                int rowOffset = (j - j % step)*width;
+                int frameOffset = y*view.width;
+                if (step == 1) {
+                    System.arraycopy(iters, rowOffset + i0, frame,
+                        frameOffset + xStart, xEnd - xStart);
+                    continue;
+                }
+
+                for (int x=xStart; x<xEnd; x++) {
+                    int i = i0 + x - xStart;
+                    frame[frameOffset + x] = iters[rowOffset + i - i % step];
+                }
+            }
+        }
+    }
+
+    /**
+     * Fork/join task which computes a single pass over a tile missing from
+     * the cache and store.
+     */
+    @SuppressWarnings("serial")
+    private static class TileTask extends RecursiveAction {
+
+        private final Tile tile;
+        private final Cancellable job;
+        private final int step;
+        private final boolean refine;
+
+        /**
+         * @param tile
+         * @param job job on whose behalf the render is performed
+         * @param step spacing between computed pixels, or 0 to compute the
+         * tile by rectangle subdivision
+         * @param refine whether the tile holds the pass with step 2*step
+         */
+        TileTask(Tile tile, Cancellable job, int step, boolean refine) {
+            this.tile = tile;
+            this.job = job;
+            this.step = step;
+            this.refine = refine;
+        }
+
+        @Override
+        protected void compute() {
+            if (job.isCancelled())
+                return;
+
+            if (step == 0)
+                tile.computeSubdivided(job);
+            else
+                tile.computePass(job, step, refine);
+        }
+    }
+
+    /**
+     * Fork/join task which computes the samples of a contiguous range of
+     * the supersampled pixels listed in an array of indices.
+     */
+    @SuppressWarnings("serial")
+    private static class SampleTask extends RecursiveAction {
+
+        /**
+         * Number of pixels below which a range is no longer split.
+         */
+        private static final int GRAIN = 64;
+
+        private final MandelView view;
+        private final int[] pixels;
+        private final int[] indices;
+        private final int n;
+        private final int[] samples;
+        private final Cancellable job;
+        private final int start, end;
+
+        SampleTask(MandelView view, int[] pixels, int[] indices, int n,
+            int[] samples, Cancellable job, int start, int end) {
+            this.view = view;
+            this.pixels = pixels;
+            this.indices = indices;
+            this.n = n;
+            this.samples = samples;
+            this.job = job;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (job.isCancelled())
+                return;
+
+            if (end - start > GRAIN) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new SampleTask(view, pixels, indices, n, samples, job,
+                        start, mid),
+                    new SampleTask(view, pixels, indices, n, samples, job,
+                        mid, end));
+                return;
+            }
+
+            int count = n*n;
+            double[] cr = new double[count];
+            double[] ci = new double[count];
+
+            boolean offsets = view.precision == Precision.DOUBLE_DOUBLE;
+            for (int t=start; t<end; t++) {
+                int k = indices[t];
+                int x = pixels[k] % view.width;
+                int y = pixels[k] / view.width;
+
+                // Samples around the pixel's sample point, as offsets
+                // from the centre of the view for double-double.  Float and
+                // double samples are computed from grid coordinates, so
+                // they are the same for every translation of the view.
+                for (int j=0; j<n; j++) {
+                    double dy = (j + 0.5)/n - 0.5;
+                    for (int i=0; i<n; i++) {
+                        double dx = (i + 0.5)/n - 0.5;
+                        if (offsets) {
+                            cr[j*n + i] = view.getRealOffset(x + dx);
+                            ci[j*n + i] = view.getImagOffset(y + dy);
+                        } else {
+                            cr[j*n + i] = view.getRealAt(x, dx);
+                            ci[j*n + i] = view.getImagAt(y, dy);
+                        }
+                    }
+                }
+
+                int offset = k*count;
+                switch (view.precision) {
+                    case FLOAT:
+                        for (int s=0; s<count; s++)
+                            samples[offset + s] = FloatKernel.getEscapeIters(
+                                (float)cr[s], (float)ci[s], view.maxIter);
+                        break;
+
+                    case DOUBLE_DOUBLE:
+                        for (int s=0; s<count; s++)
+                            samples[offset + s] = DoubleDoubleKernel.getEscapeIters(
+                                view.centreRealHi, view.centreRealLo, cr[s],
+                                view.centreImagHi, view.centreImagLo, ci[s],
+                                view.maxIter);
+                        break;
+
+                    default:
+                        ROW_KERNEL.getEscapeIters(cr, ci, count, view.maxIter,
+                            samples, offset, null, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fork/join task which continues the iteration of a contiguous range of
+     * the unfinished pixels of a ResumeState.
+     */
+    @SuppressWarnings("serial")
+    private static class ResumeTask extends RecursiveAction {
+
+        /**
+         * Number of pixels below which a range is no longer split.
+         */
+        private static final int GRAIN = 256;
+
+        private final ResumeState base;
+        private final int maxIter;
+        private final int[] result;
+        private final double[] zr, zi;
+        private final Cancellable job;
+        private final int start, end;
+
+        ResumeTask(ResumeState base, int maxIter, int[] result,
+            double[] zr, double[] zi, Cancellable job, int start, int end) {
+            this.base = base;
+            this.maxIter = maxIter;
+            this.result = result;
+            this.zr = zr;
+            this.zi = zi;
+            this.job = job;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (job.isCancelled())
+                return;
+
+            if (end - start <= GRAIN) {
+                double[] z = new double[2];
+                for (int k=start; k<end; k++) {
+                    z[0] = zr[k];
+                    z[1] = zi[k];
+                    result[k] = EscapeKernel.resumeEscapeIters(base.cr[k],
+                        base.ci[k], z, base.iterDone[k], maxIter);
+                    zr[k] = z[0];
+                    zi[k] = z[1];
+                }
+                return;
+            }
+
+            int mid = (start + end) >>> 1;
+            invokeAll(new ResumeTask(base, maxIter, result, zr, zi, job, start, mid),
+                new ResumeTask(base, maxIter, result, zr, zi, job, mid, end));
+        }
+    }
+}
@@ -0,0 +1,642 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coordinator of a render farm: renders views by cutting them into tiles
+ * which are computed by RenderFarmWorker processes on other machines (or
+ * on this one) and collecting the iteration counts back over TCP.
+ *
+ * Each worker is kept supplied with up to PIPELINE_DEPTH tiles per worker
+ * thread, drawn from a shared queue, so faster workers naturally take
+ * more of the view.  Once the queue is empty, a worker about to fall idle
+ * steals the most recently dispatched tile of the worker with the most
+ * waiting, which is told to drop it.  If no worker has tiles waiting,
+ * a tile which has been outstanding for much longer than usual is
+ * duplicated onto the idle worker, and whichever copy finishes first is
+ * used.  Tiles held by a worker whose connection fails are put back on
+ * the queue.
+ *
+ * Views needing perturbation are not supported.
+ *
+ * @author agent <agent@local>
+ */
+public class RenderFarm implements Closeable {
+
+    /**
+     * Width and height of the tiles a view is cut into.
+     */
+    public static final int TILE_SIZE = 128;
+
+    // Protocol: the worker opens with MAGIC, VERSION and its thread count,
+    // after which the coordinator sends VIEW, TILE and CANCEL messages and
+    // the worker replies with a RESULT for each tile it computes, or FAILED
+    // for a tile whose view it no longer holds.
+    static final int MAGIC = 0x4d534652;
+    static final int VERSION = 2;
+    static final byte MSG_VIEW = 1;
+    static final byte MSG_TILE = 2;
+    static final byte MSG_CANCEL = 3;
+    static final byte MSG_RESULT = 4;
+    static final byte MSG_FAILED = 5;
+
+    /**
+     * Number of tiles dispatched to a worker per worker thread, so that
+     * each has its next tile ready when it finishes one.
+     */
+    private static final int PIPELINE_DEPTH = 2;
+
+    /**
+     * A tile is duplicated onto an idle worker once it has been
+     * outstanding for this many times the mean tile turnaround.
+     */
+    private static final double STRAGGLER_FACTOR = 4.0;
+
+    /**
+     * Interval at which waiting threads check for stragglers and
+     * cancellation.
+     */
+    private static final long POLL_MILLIS = 50;
+
+    private final List<Connection> connections = new ArrayList<Connection>();
+
+    // State of the current job, guarded by this
+    private int jobId = 0;
+    private MandelView jobView = null;
+    private int[] jobIters = null;
+    private Tile[] tiles = null;
+    private final ArrayDeque<Tile> queue = new ArrayDeque<Tile>();
+    private int remaining = 0;
+    private double meanTurnaroundNanos = 0;
+    private boolean closed = false;
+
+    private long tilesComputed, tilesStolen, tilesDuplicated, tilesRequeued;
+
+    /**
+     * Connect to the given workers.  Workers which cannot be reached are
+     * reported on stderr and left out.
+     *
+     * @param workers addresses of listening RenderFarmWorkers
+     * @throws IOException if no worker could be reached
+     */
+    public RenderFarm(List<InetSocketAddress> workers) throws IOException {
+        for (InetSocketAddress address : workers) {
+            try {
+                connections.add(new Connection(address));
+            } catch (IOException ex) {
+                System.err.println("Could not connect to worker " + address
+                    + ": " + ex.getMessage());
+            }
+        }
+
+        if (connections.isEmpty())
+            throw new IOException("No render farm workers could be reached.");
+
+        for (Connection conn : connections)
+            conn.start();
+    }
+
+    /**
+     * Parse a comma-separated list of host:port worker addresses.
+     *
+     * @param spec
+     * @return addresses
+     * @throws IllegalArgumentException if an address is malformed
+     */
+    public static List<InetSocketAddress> parseAddresses(String spec) {
+        List<InetSocketAddress> addresses = new ArrayList<InetSocketAddress>();
+        for (String entry : spec.split(",")) {
+            int colon = entry.lastIndexOf(':');
+            if (colon <= 0)
+                throw new IllegalArgumentException("Worker address " + entry
+                    + " must be given as host:port.");
+
+            addresses.add(new InetSocketAddress(entry.substring(0, colon),
+                Integer.parseInt(entry.substring(colon + 1))));
+        }
+
+        return addresses;
+    }
+
+    /**
+     * @return number of workers whose connections are still open.
+     */
+    public synchronized int getWorkerCount() {
+        int count = 0;
+        for (Connection conn : connections) {
+            if (conn.alive)
+                count += 1;
+        }
+
+        return count;
+    }
+
+    /**
+     * @return total number of threads of the workers still connected.
+     */
+    public synchronized int getWorkerThreads() {
+        int count = 0;
+        for (Connection conn : connections) {
+            if (conn.alive)
+                count += conn.threads;
+        }
+
+        return count;
+    }
+
+    public synchronized long getTilesComputed() {
+        return tilesComputed;
+    }
+
+    public synchronized long getTilesStolen() {
+        return tilesStolen;
+    }
+
+    public synchronized long getTilesDuplicated() {
+        return tilesDuplicated;
+    }
+
+    public synchronized long getTilesRequeued() {
+        return tilesRequeued;
+    }
+
+    /**
+     * Compute the escape iteration count of every pixel in view on the
+     * workers.  Returns early, leaving iters partially filled, if job is
+     * cancelled.
+     *
+     * @param view view to render
+     * @param iters row-major destination array of size width*height
+     * @param job job on whose behalf the render is performed
+     * @throws IOException if every worker has been lost
+     */
+    public synchronized void render(MandelView view, int[] iters,
+        Cancellable job) throws IOException {
+        if (view.precision == Precision.PERTURBATION)
+            throw new IllegalArgumentException("The render farm cannot "
+                + "compute views by perturbation.");
+        if (closed)
+            throw new IOException("Render farm has been closed.");
+
+        jobId += 1;
+        jobView = view;
+        jobIters = iters;
+
+        int tilesX = (view.width + TILE_SIZE - 1)/TILE_SIZE;
+        int tilesY = (view.height + TILE_SIZE - 1)/TILE_SIZE;
+        tiles = new Tile[tilesX*tilesY];
+        for (int ty=0; ty<tilesY; ty++) {
+            for (int tx=0; tx<tilesX; tx++) {
+                int index = ty*tilesX + tx;
+                int x0 = tx*TILE_SIZE;
+                int y0 = ty*TILE_SIZE;
+                tiles[index] = new Tile(index, x0, y0,
+                    Math.min(TILE_SIZE, view.width - x0),
+                    Math.min(TILE_SIZE, view.height - y0));
+                queue.addLast(tiles[index]);
+            }
+        }
+        remaining = tiles.length;
+        notifyAll();
+
+        try {
+            while (remaining > 0 && !job.isCancelled()) {
+                if (getWorkerCount() == 0)
+                    throw new IOException("All render farm workers have been lost.");
+
+                try {
+                    wait(POLL_MILLIS);
+                } catch (InterruptedException ex) {
+                    throw new IOException("Interrupted while rendering.", ex);
+                }
+            }
+        } finally {
+            // Withdraw anything left over, such as duplicated tiles
+            queue.clear();
+            for (Connection conn : connections) {
+                for (Tile tile : conn.outstanding.keySet())
+                    conn.cancels.add(tile);
+                conn.outstanding.clear();
+            }
+            tiles = null;
+            jobView = null;
+            jobIters = null;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Disconnect from the workers.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+
+        for (Connection conn : connections)
+            conn.disconnect();
+    }
+
+    /**
+     * Choose the next tile to send over a connection: one from the queue
+     * if any are left, otherwise one stolen or duplicated from another
+     * worker.  Must be called while holding the lock.
+     *
+     * @param conn connection wanting work
+     * @return tile, or null if there is nothing to send
+     */
+    private Tile nextTile(Connection conn) {
+        if (tiles == null || conn.outstanding.size() >= conn.threads*PIPELINE_DEPTH)
+            return null;
+
+        Tile tile = queue.pollFirst();
+        if (tile != null)
+            return tile;
+
+        // Only steal when the worker is about to fall idle
+        if (conn.outstanding.size() >= conn.threads)
+            return null;
+
+        // Steal the newest tile of the worker with the most waiting
+        Connection victim = null;
+        int victimWaiting = 0;
+        for (Connection other : connections) {
+            int waiting = other.outstanding.size() - other.threads;
+            if (other != conn && other.alive && waiting > victimWaiting) {
+                victim = other;
+                victimWaiting = waiting;
+            }
+        }
+        if (victim != null) {
+            Tile newest = null;
+            for (Tile candidate : victim.outstanding.keySet()) {
+                if (candidate.copies == 1)
+                    newest = candidate;
+            }
+            if (newest != null) {
+                victim.outstanding.remove(newest);
+                victim.cancels.add(newest);
+                newest.copies -= 1;
+                tilesStolen += 1;
+                notifyAll();
+                return newest;
+            }
+        }
+
+        // Duplicate the oldest straggler held by another worker
+        if (meanTurnaroundNanos > 0) {
+            long now = System.nanoTime();
+            Tile oldest = null;
+            long oldestSent = Long.MAX_VALUE;
+            for (Connection other : connections) {
+                if (other == conn)
+                    continue;
+
+                for (Map.Entry<Tile, Long> entry : other.outstanding.entrySet()) {
+                    if (entry.getKey().copies == 1 && entry.getValue() < oldestSent) {
+                        oldest = entry.getKey();
+                        oldestSent = entry.getValue();
+                    }
+                }
+            }
+            if (oldest != null
+                && now - oldestSent > STRAGGLER_FACTOR*meanTurnaroundNanos) {
+                tilesDuplicated += 1;
+                return oldest;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Record the iteration counts of a tile returned by a worker.  Results
+     * from earlier jobs and for tiles already completed are discarded.
+     *
+     * @param conn connection the result arrived on
+     * @param resultJob
+     * @param index
+     * @param data row-major iteration counts of the tile
+     */
+    private synchronized void tileComputed(Connection conn, int resultJob,
+        int index, int[] data) {
+        if (resultJob != jobId || tiles == null || index < 0
+            || index >= tiles.length)
+            return;
+
+        Tile tile = tiles[index];
+        Long sent = conn.outstanding.remove(tile);
+        if (sent != null) {
+            tile.copies -= 1;
+            double turnaround = System.nanoTime() - sent;
+            meanTurnaroundNanos = meanTurnaroundNanos == 0 ? turnaround
+                : 0.9*meanTurnaroundNanos + 0.1*turnaround;
+        }
+
+        if (!tile.done && data.length == tile.width*tile.height) {
+            for (int y=0; y<tile.height; y++)
+                System.arraycopy(data, y*tile.width, jobIters,
+                    (tile.y0 + y)*jobView.width + tile.x0, tile.width);
+            tile.done = true;
+            remaining -= 1;
+            tilesComputed += 1;
+
+            // Withdraw any duplicates still outstanding elsewhere
+            for (Connection other : connections) {
+                if (other.outstanding.remove(tile) != null) {
+                    other.cancels.add(tile);
+                    tile.copies -= 1;
+                }
+            }
+        }
+
+        notifyAll();
+    }
+
+    /**
+     * Put a tile which a worker could not compute back on the queue, and
+     * resend the view along with the worker's next tile.
+     *
+     * @param conn connection the failure arrived on
+     * @param resultJob
+     * @param index
+     */
+    private synchronized void tileFailed(Connection conn, int resultJob,
+        int index) {
+        conn.resendView = true;
+        if (resultJob != jobId || tiles == null || index < 0
+            || index >= tiles.length)
+            return;
+
+        Tile tile = tiles[index];
+        if (conn.outstanding.remove(tile) != null) {
+            tile.copies -= 1;
+            if (!tile.done && tile.copies == 0) {
+                queue.addFirst(tile);
+                tilesRequeued += 1;
+            }
+        }
+
+        notifyAll();
+    }
+
+    /**
+     * Put the tiles held by a failed connection back on the queue.
+     *
+     * @param conn
+     */
+    private synchronized void connectionLost(Connection conn, IOException ex) {
+        if (!conn.alive)
+            return;
+
+        conn.alive = false;
+        if (!closed)
+            System.err.println("Lost render farm worker " + conn.address
+                + ": " + (ex.getMessage() != null ? ex.getMessage()
+                    : "connection closed") + ".");
+
+        for (Tile tile : conn.outstanding.keySet()) {
+            tile.copies -= 1;
+            if (!tile.done && tile.copies == 0) {
+                queue.addFirst(tile);
+                tilesRequeued += 1;
+            }
+        }
+        conn.outstanding.clear();
+        conn.cancels.clear();
+        notifyAll();
+    }
+
+    /**
+     * Rectangle of pixels of the current view.
+     */
+    private static class Tile {
+
+        final int index;
+        final int x0, y0, width, height;
+
+        // Guarded by the farm
+        boolean done = false;
+        int copies = 0;
+
+        Tile(int index, int x0, int y0, int width, int height) {
+            this.index = index;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /**
+     * Connection to a single worker, with one thread sending it tiles and
+     * another receiving its results.
+     */
+    private class Connection {
+
+        final InetSocketAddress address;
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+        final int threads;
+
+        // Guarded by the farm
+        boolean alive = true;
+        final LinkedHashMap<Tile, Long> outstanding = new LinkedHashMap<Tile, Long>();
+        final List<Tile> cancels = new ArrayList<Tile>();
+        int viewJob = 0;
+        boolean resendView = false;
+
+        Connection(InetSocketAddress address) throws IOException {
+            this.address = address;
+
+            socket = new Socket();
+            socket.connect(address, 10000);
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            in = new DataInputStream(new BufferedInputStream(
+                socket.getInputStream(), 1 << 16));
+            out = new DataOutputStream(new BufferedOutputStream(
+                socket.getOutputStream(), 1 << 16));
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                socket.close();
+                throw new IOException("Not a compatible render farm worker.");
+            }
+            threads = Math.max(1, in.readInt());
+        }
+
+        void start() {
+            Thread sender = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    send();
+                }
+            }, "RenderFarm sender " + address);
+            sender.setDaemon(true);
+            sender.start();
+
+            Thread receiver = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    receive();
+                }
+            }, "RenderFarm receiver " + address);
+            receiver.setDaemon(true);
+            receiver.start();
+        }
+
+        void disconnect() {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // Already closed
+            }
+        }
+
+        /**
+         * Send tiles, the views they belong to and cancellations to the
+         * worker as they become available.
+         */
+        private void send() {
+            try {
+                while (true) {
+                    List<Tile> toCancel;
+                    int cancelJob;
+                    Tile tile;
+                    MandelView view = null;
+                    int job;
+
+                    synchronized (RenderFarm.this) {
+                        while (true) {
+                            if (!alive || closed)
+                                return;
+
+                            tile = nextTile(this);
+                            if (tile != null || !cancels.isEmpty())
+                                break;
+
+                            RenderFarm.this.wait(POLL_MILLIS);
+                        }
+
+                        toCancel = new ArrayList<Tile>(cancels);
+                        cancels.clear();
+                        cancelJob = viewJob;
+
+                        job = jobId;
+                        if (tile != null) {
+                            tile.copies += 1;
+                            outstanding.put(tile, System.nanoTime());
+                            if (viewJob != jobId || resendView) {
+                                view = jobView;
+                                viewJob = jobId;
+                                resendView = false;
+                            }
+                        }
+                    }
+
+                    for (Tile cancel : toCancel) {
+                        out.writeByte(MSG_CANCEL);
+                        out.writeInt(cancelJob);
+                        out.writeInt(cancel.index);
+                    }
+
+                    if (view != null) {
+                        out.writeByte(MSG_VIEW);
+                        out.writeInt(job);
+                        out.writeUTF(view.centreReal.toString());
+                        out.writeUTF(view.centreImag.toString());
+                        out.writeDouble(view.width*view.pixelWidth);
+                        out.writeDouble(view.height*view.pixelHeight);
+                        out.writeInt(view.width);
+                        out.writeInt(view.height);
+                        out.writeInt(view.maxIter);
+                        out.writeUTF(view.precision.kernelId);
+                    }
+
+                    if (tile != null) {
+                        out.writeByte(MSG_TILE);
+                        out.writeInt(job);
+                        out.writeInt(tile.index);
+                        out.writeInt(tile.x0);
+                        out.writeInt(tile.y0);
+                        out.writeInt(tile.width);
+                        out.writeInt(tile.height);
+                    }
+
+                    out.flush();
+                }
+            } catch (IOException ex) {
+                connectionLost(this, ex);
+                disconnect();
+            } catch (InterruptedException ex) {
+                connectionLost(this, new IOException("Interrupted.", ex));
+                disconnect();
+            }
+        }
+
+        /**
+         * Read results from the worker until the connection closes.
+         */
+        private void receive() {
+            try {
+                while (true) {
+                    byte type = in.readByte();
+                    if (type == MSG_FAILED) {
+                        tileFailed(this, in.readInt(), in.readInt());
+                        continue;
+                    }
+                    if (type != MSG_RESULT)
+                        throw new IOException("Unexpected message from worker.");
+
+                    int resultJob = in.readInt();
+                    int index = in.readInt();
+                    int n = in.readInt();
+                    if (n < 0 || n > TILE_SIZE*TILE_SIZE)
+                        throw new IOException("Malformed result from worker.");
+
+                    byte[] bytes = new byte[4*n];
+                    in.readFully(bytes);
+                    int[] data = new int[n];
+                    ByteBuffer.wrap(bytes).asIntBuffer().get(data);
+
+                    tileComputed(this, resultJob, index, data);
+                }
+            } catch (IOException ex) {
+                connectionLost(this, ex);
+                disconnect();
+            }
+        }
+    }
+}
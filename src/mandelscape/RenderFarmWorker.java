@@ -0,0 +1,395 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * Render farm worker: listens for RenderFarm coordinators and computes
+ * the tiles they send, one tile per thread, replying with the iteration
+ * counts of each.  Tiles which the coordinator cancels before they are
+ * started are dropped.  Coordinators are not authenticated, so the worker
+ * listens on the loopback interface unless told otherwise.
+ *
+ * @author agent <agent@local>
+ */
+public class RenderFarmWorker {
+
+    /**
+     * Number of recent jobs whose views are kept.
+     */
+    private static final int VIEW_HISTORY = 8;
+
+    /**
+     * Largest view width or height accepted from a coordinator.
+     */
+    public static final int MAX_VIEW_SIZE = 1 << 20;
+
+    /**
+     * Largest iteration count accepted from a coordinator.
+     */
+    public static final int MAX_ITER_LIMIT = 1 << 24;
+
+    private final ServerSocket serverSocket;
+    private final int threads;
+
+    /**
+     * Describe the command line syntax.
+     */
+    private static final String USAGE =
+        "Usage: MandelscapeApp -worker [options]\n"
+        + "\n"
+        + "Options:\n"
+        + "  -bind ADDR        address to listen on (default 127.0.0.1)\n"
+        + "  -port N           port to listen on (default 7070)\n"
+        + "  -threads N        number of render threads (default: all cores)\n";
+
+    /**
+     * Create a worker listening on the given address.
+     *
+     * @param address
+     * @param threads number of tiles computed at once
+     * @throws IOException
+     */
+    public RenderFarmWorker(InetSocketAddress address, int threads)
+        throws IOException {
+        this.threads = threads;
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(address);
+    }
+
+    /**
+     * @return port the worker is listening on.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accept coordinators until the worker is closed, serving each on its
+     * own threads.
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        new Session(socket).run();
+                    }
+                }, "RenderFarmWorker session " + socket.getRemoteSocketAddress());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException ex) {
+                if (!serverSocket.isClosed())
+                    System.err.println("Error accepting connection: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stop accepting coordinators.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    /**
+     * Tile awaiting computation.
+     */
+    private static class TileRequest {
+
+        final int job, index;
+        final int x0, y0, width, height;
+
+        TileRequest(int job, int index, int x0, int y0, int width, int height) {
+            this.job = job;
+            this.index = index;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /**
+     * Connection to a single coordinator.  The calling thread reads
+     * requests while a pool of threads computes the tiles.
+     */
+    private class Session implements Cancellable {
+
+        private final Socket socket;
+        private DataOutputStream out;
+        private volatile boolean finished = false;
+
+        private final ConcurrentHashMap<Integer, MandelView> views =
+            new ConcurrentHashMap<Integer, MandelView>();
+        private final LinkedBlockingDeque<TileRequest> requests =
+            new LinkedBlockingDeque<TileRequest>();
+
+        Session(Socket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return finished;
+        }
+
+        void run() {
+            Thread[] renderers = new Thread[threads];
+            try {
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    socket.getInputStream(), 1 << 16));
+                out = new DataOutputStream(new BufferedOutputStream(
+                    socket.getOutputStream(), 1 << 16));
+
+                out.writeInt(RenderFarm.MAGIC);
+                out.writeInt(RenderFarm.VERSION);
+                out.writeInt(threads);
+                out.flush();
+
+                for (int i=0; i<threads; i++) {
+                    renderers[i] = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            renderTiles();
+                        }
+                    }, "RenderFarmWorker renderer " + i);
+                    renderers[i].setDaemon(true);
+                    renderers[i].start();
+                }
+
+                while (true) {
+                    byte type = in.readByte();
+                    switch (type) {
+                        case RenderFarm.MSG_VIEW:
+                            readView(in);
+                            break;
+
+                        case RenderFarm.MSG_TILE:
+                            readTile(in);
+                            break;
+
+                        case RenderFarm.MSG_CANCEL:
+                            cancel(in.readInt(), in.readInt());
+                            break;
+
+                        default:
+                            throw new IOException("Unknown message type " + type + ".");
+                    }
+                }
+            } catch (EOFException ex) {
+                // Coordinator has finished
+            } catch (IOException ex) {
+                if (!finished)
+                    System.err.println("Connection to coordinator lost: "
+                        + ex.getMessage());
+            } finally {
+                finished = true;
+                for (Thread renderer : renderers) {
+                    if (renderer != null)
+                        renderer.interrupt();
+                }
+                try {
+                    socket.close();
+                } catch (IOException ex) {
+                    // Already closed
+                }
+            }
+        }
+
+        private void readView(DataInputStream in) throws IOException {
+            int job = in.readInt();
+            BigDecimal centreReal, centreImag;
+            try {
+                centreReal = new BigDecimal(in.readUTF());
+                centreImag = new BigDecimal(in.readUTF());
+            } catch (NumberFormatException ex) {
+                throw new IOException("Malformed view centre.");
+            }
+            double spanReal = in.readDouble();
+            double spanImag = in.readDouble();
+            int width = in.readInt();
+            int height = in.readInt();
+            int maxIter = in.readInt();
+            String kernelId = in.readUTF();
+
+            if (width <= 0 || width > MAX_VIEW_SIZE
+                || height <= 0 || height > MAX_VIEW_SIZE)
+                throw new IOException("View size " + width + "x" + height
+                    + " is outside 1.." + MAX_VIEW_SIZE + ".");
+            if (maxIter <= 0 || maxIter > MAX_ITER_LIMIT)
+                throw new IOException("Iteration count " + maxIter
+                    + " is outside 1.." + MAX_ITER_LIMIT + ".");
+            if (!(spanReal > 0) || Double.isInfinite(spanReal)
+                || !(spanImag > 0) || Double.isInfinite(spanImag))
+                throw new IOException("View span must be positive and finite.");
+
+            Precision precision = null;
+            for (Precision p : Precision.values()) {
+                if (p.kernelId.equals(kernelId))
+                    precision = p;
+            }
+            if (precision == null || precision == Precision.PERTURBATION)
+                throw new IOException("Unsupported precision " + kernelId + ".");
+
+            views.put(job, new MandelView(centreReal, centreImag, spanReal,
+                spanImag, width, height, maxIter, precision));
+            views.remove(job - VIEW_HISTORY);
+        }
+
+        private void readTile(DataInputStream in) throws IOException {
+            TileRequest request = new TileRequest(in.readInt(), in.readInt(),
+                in.readInt(), in.readInt(), in.readInt(), in.readInt());
+
+            if (request.width <= 0 || request.width > RenderFarm.TILE_SIZE
+                || request.height <= 0 || request.height > RenderFarm.TILE_SIZE
+                || request.x0 < 0 || request.x0 > MAX_VIEW_SIZE
+                || request.y0 < 0 || request.y0 > MAX_VIEW_SIZE)
+                throw new IOException("Malformed tile request.");
+
+            MandelView view = views.get(request.job);
+            if (view != null && (request.x0 + request.width > view.width
+                || request.y0 + request.height > view.height))
+                throw new IOException("Tile lies outside its view.");
+
+            requests.addLast(request);
+        }
+
+        private void cancel(int job, int index) {
+            Iterator<TileRequest> it = requests.iterator();
+            while (it.hasNext()) {
+                TileRequest request = it.next();
+                if (request.job == job && request.index == index)
+                    it.remove();
+            }
+        }
+
+        /**
+         * Compute requested tiles until the session finishes.
+         */
+        private void renderTiles() {
+            try {
+                while (!finished) {
+                    TileRequest request = requests.takeFirst();
+                    MandelView view = views.get(request.job);
+                    if (view == null) {
+                        // Superseded by newer views; the coordinator
+                        // resends the view if it still wants the tile
+                        synchronized (out) {
+                            out.writeByte(RenderFarm.MSG_FAILED);
+                            out.writeInt(request.job);
+                            out.writeInt(request.index);
+                            out.flush();
+                        }
+                        continue;
+                    }
+
+                    int[] data = new int[request.width*request.height];
+                    RenderEngine.renderBlock(view, request.x0, request.y0,
+                        request.width, request.height, data, this);
+                    if (finished)
+                        return;
+
+                    byte[] bytes = new byte[4*data.length];
+                    ByteBuffer.wrap(bytes).asIntBuffer().put(data);
+
+                    synchronized (out) {
+                        out.writeByte(RenderFarm.MSG_RESULT);
+                        out.writeInt(request.job);
+                        out.writeInt(request.index);
+                        out.writeInt(data.length);
+                        out.write(bytes);
+                        out.flush();
+                    }
+                }
+            } catch (InterruptedException ex) {
+                // Session finished
+            } catch (IOException ex) {
+                finished = true;
+                try {
+                    socket.close();
+                } catch (IOException ex2) {
+                    // Already closed
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        String bind = "127.0.0.1";
+        int port = 7070;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        int i = 0;
+        try {
+            while (i < args.length) {
+                String arg = args[i++];
+
+                if (arg.equals("-bind"))
+                    bind = args[i++];
+                else if (arg.equals("-port"))
+                    port = Integer.parseInt(args[i++]);
+                else if (arg.equals("-threads"))
+                    threads = Integer.parseInt(args[i++]);
+                else
+                    throw new IllegalArgumentException("Unknown option " + arg + ".");
+            }
+
+            if (threads <= 0)
+                throw new IllegalArgumentException("Threads must be positive.");
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            System.err.println("Missing value for " + args[i-1] + ".");
+            System.err.print(USAGE);
+            System.exit(1);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE);
+            System.exit(1);
+        }
+
+        try {
+            RenderFarmWorker worker = new RenderFarmWorker(
+                new InetSocketAddress(bind, port), threads);
+            System.err.println("Render farm worker listening on " + bind + ":"
+                + worker.getPort() + " with " + threads + " threads.");
+            worker.serve();
+        } catch (IOException ex) {
+            System.err.println("Could not start worker: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Timings and iteration counts of the most recent frame, recorded by the
+ * model as frames are computed and coloured and by the panel as they are
+ * painted.  Each stage is also reported as a FrameEvent, which costs
+ * almost nothing unless a flight recording is in progress.
+ *
+ * The iteration count of a frame is the number of iterations performed
+ * for the pixels which escaped while it was being computed.  Pixels
+ * iterated without escaping are counted separately, since points shown
+ * to lie in the set by the cardioid test or cycle detection take far
+ * fewer than maxIter iterations.  Pixels taken from the tile cache or an
+ * earlier frame count for nothing, and resumed pixels count only for the
+ * iterations added to them.
+ *
+ * @author agent <agent@local>
+ */
+public class RenderMetrics implements RenderMetricsMBean {
+
+    private volatile long frameCount = 0;
+    private volatile long computeNanos, colourNanos, paintNanos;
+    private volatile long iterations, maxIterPixels;
+
+    /**
+     * Register these metrics with the platform MBean server.
+     *
+     * @param name object name, e.g. "mandelscape:type=RenderMetrics"
+     * @throws JMException
+     */
+    public void registerMBean(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+            new ObjectName(name));
+    }
+
+    /**
+     * Record the computation of a complete frame.  Called on the render
+     * thread.
+     *
+     * @param view view from which the frame was computed
+     * @param total iterations performed for escaped pixels
+     * @param atMax number of pixels iterated without escaping
+     * @param event event started when computation started
+     */
+    void recordCompute(MandelView view, long total, long atMax,
+        FrameEvent event) {
+        long nanos = event.finish();
+
+        iterations = total;
+        maxIterPixels = atMax;
+        computeNanos = nanos;
+        frameCount += 1;
+
+        if (event.shouldCommit()) {
+            event.stage = FrameEvent.COMPUTE;
+            event.width = view.width;
+            event.height = view.height;
+            event.precision = view.precision.toString();
+            event.iterations = total;
+            event.maxIterPixels = atMax;
+            event.commit();
+        }
+    }
+
+    /**
+     * Record the colouring of a frame.
+     *
+     * @param width
+     * @param height
+     * @param event event started when colouring started
+     */
+    void recordColour(int width, int height, FrameEvent event) {
+        colourNanos = event.finish();
+        commit(event, FrameEvent.COLOUR, width, height);
+    }
+
+    /**
+     * Record the painting of a frame.
+     *
+     * @param width
+     * @param height
+     * @param event event started when painting started
+     */
+    void recordPaint(int width, int height, FrameEvent event) {
+        paintNanos = event.finish();
+        commit(event, FrameEvent.PAINT, width, height);
+    }
+
+    private static void commit(FrameEvent event, String stage, int width,
+        int height) {
+        if (event.shouldCommit()) {
+            event.stage = stage;
+            event.width = width;
+            event.height = height;
+            event.commit();
+        }
+    }
+
+    @Override
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public double getComputeMillis() {
+        return computeNanos*1e-6;
+    }
+
+    @Override
+    public double getColourMillis() {
+        return colourNanos*1e-6;
+    }
+
+    @Override
+    public double getPaintMillis() {
+        return paintNanos*1e-6;
+    }
+
+    @Override
+    public long getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public long getMaxIterPixels() {
+        return maxIterPixels;
+    }
+
+    @Override
+    public double getIterationsPerSecond() {
+        long nanos = computeNanos;
+        return nanos > 0 ? iterations*1e9/nanos : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("compute %.1f ms, colour %.1f ms, paint %.1f ms, "
+            + "%d iterations (%.3g/s), %d pixels at maxIter",
+            getComputeMillis(), getColourMillis(), getPaintMillis(),
+            getIterations(), getIterationsPerSecond(), getMaxIterPixels());
+    }
+}
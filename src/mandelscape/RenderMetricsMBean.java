@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+/**
+ * Management interface exposing the metrics of the most recent frame.
+ *
+ * @author agent <agent@local>
+ */
+public interface RenderMetricsMBean {
+
+    /**
+     * @return number of complete frames computed.
+     */
+    public long getFrameCount();
+
+    /**
+     * @return time taken to compute the last complete frame, in ms.
+     */
+    public double getComputeMillis();
+
+    /**
+     * @return time taken to colour the last frame, in ms.
+     */
+    public double getColourMillis();
+
+    /**
+     * @return time taken to paint the last frame, in ms.
+     */
+    public double getPaintMillis();
+
+    /**
+     * @return iterations performed for the escaped pixels of the last
+     * complete frame.
+     */
+    public long getIterations();
+
+    /**
+     * @return pixels of the last complete frame which were iterated
+     * without escaping.
+     */
+    public long getMaxIterPixels();
+
+    /**
+     * @return escaped pixel iterations per second of compute time for
+     * the last complete frame.
+     */
+    public double getIterationsPerSecond();
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+/**
+ * Everything known about the escape iteration counts of a region, kept so
+ * that changing the maximum iteration count does not require starting
+ * again from z=0.  Pixels which had not escaped after knownMaxIter
+ * iterations (and were not proven to lie in the set) are listed in compact
+ * primitive arrays together with their sample point, the number of
+ * iterations already performed and the value of z those reached.
+ *
+ * Frames rendered at double precision record this state as they are
+ * computed (see FrameRecorder), so most unfinished pixels resume from
+ * knownMaxIter.  Pixels whose counts were filled in rather than iterated
+ * start again from z=0.
+ *
+ * Instances are immutable once constructed.
+ *
+ * @author agent <agent@local>
+ */
+public class ResumeState {
+
+    /**
+     * View describing the region, with maxIter equal to knownMaxIter.
+     */
+    public final MandelView view;
+
+    /**
+     * Row-major escape counts computed to knownMaxIter iterations.
+     */
+    final int[] knownIters;
+
+    /**
+     * Index into knownIters of each unfinished pixel.
+     */
+    final int[] pixels;
+
+    /**
+     * Number of iterations already performed for each unfinished pixel.
+     */
+    final int[] iterDone;
+
+    /**
+     * Sample point and current z of each unfinished pixel.
+     */
+    final double[] cr, ci, zr, zi;
+
+    ResumeState(MandelView view, int[] knownIters, int[] pixels,
+        int[] iterDone, double[] cr, double[] ci, double[] zr, double[] zi) {
+        this.view = view;
+        this.knownIters = knownIters;
+        this.pixels = pixels;
+        this.iterDone = iterDone;
+        this.cr = cr;
+        this.ci = ci;
+        this.zr = zr;
+        this.zi = zi;
+    }
+
+    /**
+     * Create the state corresponding to a frame for which only the final
+     * iteration counts are known, such as one computed at float
+     * precision.  Unfinished pixels start from z=0.
+     *
+     * @param view view from which iters was computed
+     * @param iters row-major iteration counts
+     * @return new state
+     */
+    public static ResumeState fromFrame(MandelView view, int[] iters) {
+        int count = 0;
+        for (int i=0; i<iters.length; i++) {
+            if (iters[i] < 0)
+                count += 1;
+        }
+
+        int[] pixels = new int[count];
+        double[] cr = new double[count];
+        double[] ci = new double[count];
+
+        int n = 0;
+        for (int i=0; i<iters.length; i++) {
+            if (iters[i] < 0) {
+                pixels[n] = i;
+                int x = i % view.width, y = i / view.width;
+                cr[n] = view.getRealJittered(x, y, 0.1);
+                ci[n] = view.getImagJittered(x, y, 0.1);
+                n += 1;
+            }
+        }
+
+        return new ResumeState(view, iters, pixels, new int[count], cr, ci,
+            new double[count], new double[count]);
+    }
+
+    /**
+     * @return maximum iteration count to which this state is complete.
+     */
+    public int getKnownMaxIter() {
+        return view.maxIter;
+    }
+
+    /**
+     * @return number of pixels which may still escape at higher maxIter.
+     */
+    public int getUnfinishedCount() {
+        return pixels.length;
+    }
+
+    /**
+     * Obtain iteration counts for a maximum iteration count no greater than
+     * the known one, without performing any iterations.
+     *
+     * @param maxIter
+     * @return new row-major array of iteration counts
+     */
+    public int[] getClampedIters(int maxIter) {
+        int[] iters = new int[knownIters.length];
+        for (int i=0; i<iters.length; i++) {
+            int iter = knownIters[i];
+            iters[i] = iter < maxIter ? iter : -1;
+        }
+
+        return iters;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+/**
+ * Computes escape iteration counts for a batch of points at once, so that
+ * implementations can iterate several points in parallel using SIMD
+ * instructions.  Results must be identical to those of
+ * EscapeKernel.getEscapeIters() for the same points.
+ *
+ * @author agent <agent@local>
+ */
+public interface RowKernel {
+
+    /**
+     * Compute the escape iteration counts of the points (cr[k], ci[k]) for
+     * k from 0 to count-1, storing them in iters[offset+k].
+     *
+     * If zr and zi are given, then for every point whose count is -1 they
+     * receive the value of z after maxIter iterations, from which the
+     * iteration can later be resumed, or NaN if the point was proven to
+     * lie in the set.  Entries for points which escaped are undefined.
+     *
+     * @param cr real parts of the points
+     * @param ci imaginary parts of the points
+     * @param count number of points
+     * @param maxIter
+     * @param iters destination array
+     * @param offset index in iters of the first result
+     * @param zr destination for final real parts of z, or null
+     * @param zi destination for final imaginary parts of z, or null
+     */
+    public void getEscapeIters(double[] cr, double[] ci, int count,
+        int maxIter, int[] iters, int offset, double[] zr, double[] zi);
+}
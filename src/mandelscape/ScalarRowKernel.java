@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+/**
+ * RowKernel which iterates one point at a time using EscapeKernel.
+ *
+ * @author agent <agent@local>
+ */
+public class ScalarRowKernel implements RowKernel {
+
+    @Override
+    public void getEscapeIters(double[] cr, double[] ci, int count,
+        int maxIter, int[] iters, int offset, double[] zr, double[] zi) {
+        if (zr == null) {
+            for (int k=0; k<count; k++)
+                iters[offset + k] = EscapeKernel.getEscapeIters(cr[k], ci[k],
+                    maxIter);
+            return;
+        }
+
+        double[] z = new double[2];
+        for (int k=0; k<count; k++) {
+            z[0] = 0.0;
+            z[1] = 0.0;
+            int iter = EscapeKernel.resumeEscapeIters(cr[k], ci[k], z, 0,
+                maxIter);
+            if (iter == EscapeKernel.INTERIOR) {
+                iter = -1;
+                z[0] = Double.NaN;
+                z[1] = Double.NaN;
+            }
+
+            iters[offset + k] = iter;
+            zr[k] = z[0];
+            zi[k] = z[1];
+        }
+    }
+}
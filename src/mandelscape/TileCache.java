@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memory-bounded LRU cache of computed iteration counts.  The complex plane
+ * is divided, at each of a discrete set of pixel scales, into square tiles
+ * of TILE_SIZE x TILE_SIZE pixels whose corners lie on integer multiples of
+ * the pixel scale.  Views rendered through the cache are snapped onto this
+ * grid so that tiles can be shared between overlapping views.
+ *
+ * @author agent <agent@local>
+ */
+public class TileCache {
+
+    /**
+     * Width and height of a tile in pixels.
+     */
+    public static final int TILE_SIZE = 64;
+
+    /**
+     * Number of discrete pixel scales per factor of e.  Scales within
+     * about one part in a million of each other share tiles.
+     */
+    private static final double SCALE_LEVELS_PER_E = 1 << 20;
+
+    private static final long TILE_BYTES = 4L*TILE_SIZE*TILE_SIZE;
+
+    private final LinkedHashMap<Key, int[]> tiles =
+        new LinkedHashMap<Key, int[]>(16, 0.75f, true);
+
+    private long budgetBytes;
+    private long hits, misses, evictions;
+
+    /**
+     * Create a new cache which holds at most budgetBytes worth of tiles.
+     *
+     * @param budgetBytes
+     */
+    public TileCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Retrieve a tile, marking it as most recently used.
+     *
+     * @param key
+     * @return row-major tile iteration counts, or null if not cached.
+     */
+    public synchronized int[] get(Key key) {
+        int[] tile = tiles.get(key);
+        if (tile == null)
+            misses += 1;
+        else
+            hits += 1;
+
+        return tile;
+    }
+
+    /**
+     * Add a tile to the cache, evicting least recently used tiles if the
+     * memory budget is exceeded.  The array must not be modified
+     * afterwards.
+     *
+     * @param key
+     * @param tile
+     */
+    public synchronized void put(Key key, int[] tile) {
+        tiles.put(key, tile);
+        evictToBudget();
+    }
+
+    /**
+     * Change the memory budget, evicting tiles if necessary.
+     *
+     * @param budgetBytes
+     */
+    public synchronized void setBudget(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        evictToBudget();
+    }
+
+    /**
+     * @return maximum number of bytes of tile data held.
+     */
+    public synchronized long getBudget() {
+        return budgetBytes;
+    }
+
+    /**
+     * @return number of bytes of tile data currently held.
+     */
+    public synchronized long getSize() {
+        return tiles.size()*TILE_BYTES;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Discard all cached tiles.  Counters are left untouched.
+     */
+    public synchronized void clear() {
+        tiles.clear();
+    }
+
+    private void evictToBudget() {
+        Iterator<Map.Entry<Key, int[]>> it = tiles.entrySet().iterator();
+        while (tiles.size()*TILE_BYTES > budgetBytes && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions += 1;
+        }
+    }
+
+    /**
+     * @param pixelSize
+     * @return index of the discrete scale nearest to pixelSize.
+     */
+    public static long getScaleLevel(double pixelSize) {
+        return Math.round(Math.log(pixelSize)*SCALE_LEVELS_PER_E);
+    }
+
+    /**
+     * @param level
+     * @return pixel size corresponding to the given scale index.
+     */
+    public static double getLevelScale(long level) {
+        return Math.exp(level/SCALE_LEVELS_PER_E);
+    }
+
+    /**
+     * Snap a view onto the tile grid: the pixel scale is rounded to the
+     * nearest discrete level and the top-left pixel to the nearest grid
+     * point.  The pixels of the snapped view are those of the tiles which
+     * cover it, so anything computed from its pixel positions, such as
+     * edge samples, lines up with the tiles.
+     *
+     * @param view
+     * @return snapped view, with the same dimensions, maxIter and precision
+     */
+    public static MandelView getSnappedView(MandelView view) {
+        double scaleX = getLevelScale(getScaleLevel(view.pixelWidth));
+        double scaleY = getLevelScale(getScaleLevel(view.pixelHeight));
+        long gx0 = Math.round(view.crMin/scaleX);
+        long gy0 = Math.round(view.ciMin/scaleY);
+
+        BigDecimal centreReal = new BigDecimal(scaleX).multiply(
+            BigDecimal.valueOf(gx0).add(BigDecimal.valueOf(0.5*view.width)));
+        BigDecimal centreImag = new BigDecimal(scaleY).multiply(
+            BigDecimal.valueOf(gy0).add(BigDecimal.valueOf(0.5*view.height)));
+
+        return new MandelView(centreReal, centreImag, scaleX*view.width,
+            scaleY*view.height, view.width, view.height, view.maxIter,
+            view.precision);
+    }
+
+    /**
+     * Identifies a tile by pixel scale, position in the tile grid at that
+     * scale, maximum iteration count and the kernel used to compute it.
+     */
+    public static final class Key {
+
+        public final long levelX, levelY;
+        public final long tileX, tileY;
+        public final int maxIter;
+        public final String kernel;
+
+        public Key(long levelX, long levelY, long tileX, long tileY,
+            int maxIter, String kernel) {
+            this.levelX = levelX;
+            this.levelY = levelY;
+            this.tileX = tileX;
+            this.tileY = tileY;
+            this.maxIter = maxIter;
+            this.kernel = kernel;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                Key other = (Key)obj;
+                return other.levelX == levelX && other.levelY == levelY
+                    && other.tileX == tileX && other.tileY == tileY
+                    && other.maxIter == maxIter
+                    && other.kernel.equals(kernel);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 31 * hash + (int) (levelX ^ (levelX >>> 32));
+            hash = 31 * hash + (int) (levelY ^ (levelY >>> 32));
+            hash = 31 * hash + (int) (tileX ^ (tileX >>> 32));
+            hash = 31 * hash + (int) (tileY ^ (tileY >>> 32));
+            hash = 31 * hash + maxIter;
+            hash = 31 * hash + kernel.hashCode();
+            return hash;
+        }
+    }
+}
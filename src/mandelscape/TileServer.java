@@ -0,0 +1,456 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless HTTP server which renders PNG tiles of the Mandelbrot set on
+ * demand for XYZ ("slippy map") tile viewers, at
+ *
+ *   /{z}/{x}/{y}.png?maxIter=N&amp;palette=NAME
+ *
+ * At zoom level z the square from -2.5-2i to 1.5+2i is divided into
+ * 2^z x 2^z tiles of TILE_SIZE pixels, with tile (0,0) at the top left.
+ *
+ * Requests are handled by a fixed number of threads, each of which
+ * renders a whole tile serially, so that throughput scales with the
+ * number of cores without tiles competing for a shared pool.  Concurrent
+ * requests for the same tile wait for a single render, and encoded tiles
+ * are held in a memory-bounded LRU cache.
+ *
+ * @author agent <agent@local>
+ */
+public class TileServer {
+
+    /**
+     * Width and height of a tile in pixels.
+     */
+    public static final int TILE_SIZE = 256;
+
+    /**
+     * Deepest zoom level served.  Tile coordinates must fit in a long,
+     * and double-double arithmetic resolves pixels at this depth.
+     */
+    public static final int MAX_ZOOM = 60;
+
+    /**
+     * Largest iteration count a client may request.
+     */
+    public static final int MAX_ITER_LIMIT = 100000;
+
+    private static final double WORLD_SPAN = 4.0;
+    private static final double WORLD_REAL_MIN = -2.5;
+    private static final double WORLD_IMAG_MAX = 2.0;
+
+    /**
+     * Deflate level used for tiles: most of the compression for much
+     * less time than the default.
+     */
+    private static final int COMPRESSION_LEVEL = 3;
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+    private final int defaultMaxIter;
+
+    private final Map<String, MandelColourModel> palettes =
+        new LinkedHashMap<String, MandelColourModel>();
+
+    private final ConcurrentHashMap<String, FutureTask<byte[]>> inFlight =
+        new ConcurrentHashMap<String, FutureTask<byte[]>>();
+
+    private final LinkedHashMap<String, byte[]> cache =
+        new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+    private final long cacheBudget;
+    private long cacheSize = 0;
+    private long hits, misses, renders;
+
+    /**
+     * Describe the command line syntax.
+     */
+    private static final String USAGE =
+        "Usage: MandelscapeApp -serve [options]\n"
+        + "\n"
+        + "Options:\n"
+        + "  -bind ADDR        address to listen on (default 127.0.0.1)\n"
+        + "  -port N           port to listen on (default 8080)\n"
+        + "  -threads N        number of request threads (default: all cores)\n"
+        + "  -cache MB         memory budget of the tile cache (default 256)\n"
+        + "  -maxiter N        iteration count when none is requested (default 500)\n";
+
+    /**
+     * Create a server listening on the given address.  The server does not
+     * accept requests until start() is called.
+     *
+     * @param address address to listen on
+     * @param threads number of threads handling requests
+     * @param cacheBudget maximum number of bytes of encoded tiles cached
+     * @param defaultMaxIter iteration count used when none is requested
+     * @throws IOException
+     */
+    public TileServer(InetSocketAddress address, int threads, long cacheBudget,
+        int defaultMaxIter) throws IOException {
+        this.cacheBudget = cacheBudget;
+        this.defaultMaxIter = defaultMaxIter;
+
+        palettes.put("rainbow", new RainbowColourModel());
+        palettes.put("ice", new IceColourModel());
+
+        // Once the queue is full the dispatcher thread renders tiles
+        // itself, which stops it accepting more connections.
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(64*threads),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+        server = HttpServer.create(address, 0);
+        server.createContext("/", new TileHandler());
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Start accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop accepting requests, allowing those in progress up to delay
+     * seconds to complete.
+     *
+     * @param delay
+     */
+    public void stop(int delay) {
+        server.stop(delay);
+        executor.shutdown();
+    }
+
+    /**
+     * @return address the server is listening on.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return number of tiles rendered, which is less than the number of
+     * misses when concurrent requests for a tile have been collapsed.
+     */
+    public synchronized long getRenders() {
+        return renders;
+    }
+
+    /**
+     * Obtain the encoded PNG of a tile, from the cache if possible.  If
+     * the tile is already being rendered for another request, wait for
+     * that render rather than starting a new one.
+     *
+     * @param z zoom level
+     * @param x tile column
+     * @param y tile row
+     * @param maxIter
+     * @param palette name of the colour model
+     * @return PNG image data, which must not be modified
+     * @throws IOException
+     */
+    public byte[] getTile(final int z, final long x, final long y,
+        final int maxIter, final String palette) throws IOException {
+        final String key = z + "/" + x + "/" + y + "/" + maxIter + "/" + palette;
+
+        byte[] png = getCached(key);
+        synchronized (this) {
+            if (png != null)
+                hits += 1;
+            else
+                misses += 1;
+        }
+        if (png != null)
+            return png;
+
+        FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws IOException {
+                byte[] result = renderTile(z, x, y, maxIter,
+                    palettes.get(palette));
+                putCached(key, result);
+                return result;
+            }
+        });
+
+        FutureTask<byte[]> existing = inFlight.putIfAbsent(key, task);
+        if (existing == null) {
+            // Check again, in case the tile was finished since the miss
+            png = getCached(key);
+            if (png != null) {
+                inFlight.remove(key, task);
+                return png;
+            }
+
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+        } else
+            task = existing;
+
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            throw new IOException("Interrupted while rendering tile.", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException)
+                throw (IOException)ex.getCause();
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    /**
+     * Render and encode a single tile on the calling thread.
+     *
+     * @param z zoom level
+     * @param x tile column
+     * @param y tile row
+     * @param maxIter
+     * @param colourModel
+     * @return PNG image data
+     * @throws IOException
+     */
+    private byte[] renderTile(int z, long x, long y, int maxIter,
+        MandelColourModel colourModel) throws IOException {
+        synchronized (this) {
+            renders += 1;
+        }
+
+        // Tile spans are powers of two, so the centre is exact
+        double span = Math.scalb(WORLD_SPAN, -z);
+        BigDecimal bigSpan = new BigDecimal(span);
+        BigDecimal centreReal = new BigDecimal(WORLD_REAL_MIN)
+            .add(bigSpan.multiply(BigDecimal.valueOf(2*x + 1))
+                .divide(BigDecimal.valueOf(2)));
+        BigDecimal centreImag = new BigDecimal(WORLD_IMAG_MAX)
+            .subtract(bigSpan.multiply(BigDecimal.valueOf(2*y + 1))
+                .divide(BigDecimal.valueOf(2)));
+
+        MandelView view = new MandelView(centreReal, centreImag, span, span,
+            TILE_SIZE, TILE_SIZE, maxIter);
+
+        int[] iters = new int[TILE_SIZE*TILE_SIZE];
+        RenderEngine.renderSerial(view, iters, Cancellable.NEVER);
+
+        int[] rgb = new int[iters.length];
+        colourModel.fillRGB(iters, rgb);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 15);
+        PngStreamWriter writer = new PngStreamWriter(bytes, TILE_SIZE,
+            TILE_SIZE, COMPRESSION_LEVEL);
+        for (int row=0; row<TILE_SIZE; row++)
+            writer.writeRow(rgb, row*TILE_SIZE);
+        writer.close();
+
+        return bytes.toByteArray();
+    }
+
+    private synchronized byte[] getCached(String key) {
+        return cache.get(key);
+    }
+
+    private synchronized void putCached(String key, byte[] png) {
+        byte[] old = cache.put(key, png);
+        if (old != null)
+            cacheSize -= old.length;
+        cacheSize += png.length;
+
+        Iterator<byte[]> it = cache.values().iterator();
+        while (cacheSize > cacheBudget && it.hasNext()) {
+            cacheSize -= it.next().length;
+            it.remove();
+        }
+    }
+
+    /**
+     * Parses tile requests and writes the responses.
+     */
+    private class TileHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                if (!exchange.getRequestMethod().equals("GET")
+                    && !exchange.getRequestMethod().equals("HEAD")) {
+                    sendError(exchange, 405, "Only GET is supported.");
+                    return;
+                }
+
+                String[] parts = exchange.getRequestURI().getPath().split("/");
+                if (parts.length != 4 || !parts[0].isEmpty()
+                    || !parts[3].endsWith(".png")) {
+                    sendError(exchange, 404, "Tiles are found at /{z}/{x}/{y}.png");
+                    return;
+                }
+
+                int z, maxIter = defaultMaxIter;
+                long x, y;
+                String palette = "rainbow";
+                try {
+                    z = Integer.parseInt(parts[1]);
+                    x = Long.parseLong(parts[2]);
+                    y = Long.parseLong(parts[3].substring(0, parts[3].length() - 4));
+
+                    String query = exchange.getRequestURI().getQuery();
+                    if (query != null) {
+                        for (String param : query.split("&")) {
+                            if (param.startsWith("maxIter="))
+                                maxIter = Integer.parseInt(param.substring(8));
+                            else if (param.startsWith("palette="))
+                                palette = param.substring(8).toLowerCase();
+                        }
+                    }
+                } catch (NumberFormatException ex) {
+                    sendError(exchange, 400, "Invalid number: " + ex.getMessage());
+                    return;
+                }
+
+                if (z < 0 || z > MAX_ZOOM || x < 0 || y < 0
+                    || x >= (1L << z) || y >= (1L << z)) {
+                    sendError(exchange, 404, "No such tile.");
+                    return;
+                }
+                if (maxIter <= 0 || maxIter > MAX_ITER_LIMIT) {
+                    sendError(exchange, 400, "maxIter must be between 1 and "
+                        + MAX_ITER_LIMIT + ".");
+                    return;
+                }
+                if (!palettes.containsKey(palette)) {
+                    sendError(exchange, 400, "Unknown palette. Available palettes: "
+                        + palettes.keySet());
+                    return;
+                }
+
+                byte[] png = getTile(z, x, y, maxIter, palette);
+
+                exchange.getResponseHeaders().set("Content-Type", "image/png");
+                exchange.getResponseHeaders().set("Cache-Control",
+                    "public, max-age=86400");
+                exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+                if (exchange.getRequestMethod().equals("HEAD")) {
+                    exchange.getResponseHeaders().set("Content-Length",
+                        Integer.toString(png.length));
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, png.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(png);
+                    out.close();
+                }
+            } catch (IOException ex) {
+                System.err.println("Error serving " + exchange.getRequestURI()
+                    + ": " + ex.getMessage());
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private void sendError(HttpExchange exchange, int code, String message)
+            throws IOException {
+            byte[] body = (message + "\n").getBytes("UTF-8");
+            exchange.getResponseHeaders().set("Content-Type",
+                "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(code, body.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(body);
+            out.close();
+        }
+    }
+
+    public static void main(String[] args) {
+        String bind = "127.0.0.1";
+        int port = 8080;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long cacheMB = 256;
+        int maxIter = 500;
+
+        int i = 0;
+        try {
+            while (i < args.length) {
+                String arg = args[i++];
+
+                if (arg.equals("-bind"))
+                    bind = args[i++];
+                else if (arg.equals("-port"))
+                    port = Integer.parseInt(args[i++]);
+                else if (arg.equals("-threads"))
+                    threads = Integer.parseInt(args[i++]);
+                else if (arg.equals("-cache"))
+                    cacheMB = Long.parseLong(args[i++]);
+                else if (arg.equals("-maxiter"))
+                    maxIter = Integer.parseInt(args[i++]);
+                else
+                    throw new IllegalArgumentException("Unknown option " + arg + ".");
+            }
+
+            if (threads <= 0 || cacheMB < 0 || maxIter <= 0
+                || maxIter > MAX_ITER_LIMIT)
+                throw new IllegalArgumentException("Threads and maxiter must "
+                    + "be positive and the cache size non-negative.");
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            System.err.println("Missing value for " + args[i-1] + ".");
+            System.err.print(USAGE);
+            System.exit(1);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE);
+            System.exit(1);
+        }
+
+        try {
+            TileServer server = new TileServer(new InetSocketAddress(bind, port),
+                threads, cacheMB << 20, maxIter);
+            server.start();
+            System.err.println("Serving tiles at http://" + bind + ":"
+                + server.getAddress().getPort() + "/{z}/{x}/{y}.png");
+        } catch (IOException ex) {
+            System.err.println("Could not start server: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+}
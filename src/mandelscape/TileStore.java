@@ -0,0 +1,481 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent, size-bounded store of TileCache tiles, kept in a single
+ * memory-mapped file so that tiles survive between sessions.
+ *
+ * The file starts with a header identifying the format version and
+ * geometry, followed by a fixed number of slots.  Each slot holds a
+ * small header recording the tile's key and a stamp, then the tile's
+ * iteration counts.  Slots with a zero stamp are empty.  The index of
+ * occupied slots is rebuilt from the slot headers when the file is
+ * opened.
+ *
+ * Tiles are copied straight from the mapping into the destination frame,
+ * with no intermediate buffers or read calls.  Writes are performed
+ * asynchronously by a background thread and dropped if it falls too far
+ * behind.  When the store is full the least recently used tile is
+ * replaced; across sessions, recency is approximated by the order in
+ * which tiles were written.
+ *
+ * The file is locked for as long as the store is open, so only one
+ * process can use it at a time.
+ *
+ * @author agent <agent@local>
+ */
+public class TileStore implements Closeable {
+
+    /**
+     * "MSTILES" followed by a zero byte.
+     */
+    private static final long MAGIC = 0x4d5354494c455300L;
+
+    /**
+     * Version of the file format.  Files of any other version are
+     * discarded.
+     */
+    public static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_HEADER_BYTES = 64;
+    private static final int MAX_KERNEL_BYTES = 16;
+    private static final int TILE_INTS = TileCache.TILE_SIZE*TileCache.TILE_SIZE;
+    private static final int SLOT_BYTES = SLOT_HEADER_BYTES + 4*TILE_INTS;
+
+    /**
+     * Number of slots in each separately mapped segment of the file,
+     * which must be less than 2GB in size.
+     */
+    private static final int SLOTS_PER_SEGMENT = (1 << 30)/SLOT_BYTES;
+
+    /**
+     * Maximum number of tiles waiting to be written.
+     */
+    private static final int MAX_PENDING_WRITES = 1024;
+
+    /**
+     * Files of the stores open in this process.  File locks are held by
+     * the whole process, and closing any channel to a file releases them,
+     * so a second store must not even open a channel to a locked file.
+     */
+    private static final Set<Path> openFiles = new HashSet<Path>();
+
+    private final Path file;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final IntBuffer[] segmentInts;
+    private final int slotCount;
+
+    /**
+     * Slots of stored tiles, in order of last use.
+     */
+    private final LinkedHashMap<TileCache.Key, Integer> index =
+        new LinkedHashMap<TileCache.Key, Integer>(16, 0.75f, true);
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<Integer>();
+
+    /**
+     * Stamp of the tile in each slot, changed before a slot is
+     * overwritten so that readers can detect the change.
+     */
+    private final long[] stamps;
+    private long nextStamp = 1;
+
+    private final ThreadPoolExecutor writer;
+    private long hits, misses, writes, evictions;
+
+    /**
+     * Open or create a store.  An existing file with a different format
+     * version or tile size is discarded; one with a different size is
+     * resized, keeping the tiles which still fit.
+     *
+     * @param file
+     * @param budgetBytes maximum size of the file
+     * @throws IOException if the file cannot be opened or is locked by
+     * another store
+     */
+    public TileStore(Path file, long budgetBytes) throws IOException {
+        slotCount = (int)Math.max(1, Math.min(Integer.MAX_VALUE,
+            (budgetBytes - HEADER_BYTES)/SLOT_BYTES));
+        long fileBytes = HEADER_BYTES + (long)slotCount*SLOT_BYTES;
+
+        // Another store, in this process or another, would overwrite
+        // slots which this store believes it owns
+        this.file = file.toAbsolutePath().normalize();
+        synchronized (openFiles) {
+            if (!openFiles.add(this.file))
+                throw new IOException(file + " is in use by another store");
+        }
+
+        // Until the store is fully open, a failure must release the lock,
+        // the channel and the claim on the file
+        FileChannel fileChannel = null;
+        FileLock fileLock = null;
+        boolean opened = false;
+        try {
+            fileChannel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel = fileChannel;
+            try {
+                fileLock = channel.tryLock();
+            } catch (OverlappingFileLockException ex) {
+                fileLock = null;
+            }
+            if (fileLock == null)
+                throw new IOException(file + " is in use by another process");
+            lock = fileLock;
+
+            boolean valid = false;
+            if (channel.size() >= HEADER_BYTES) {
+                MappedByteBuffer oldHeader = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+                valid = oldHeader.getLong(0) == MAGIC
+                    && oldHeader.getInt(8) == VERSION
+                    && oldHeader.getInt(12) == TileCache.TILE_SIZE;
+            }
+            if (!valid)
+                channel.truncate(0);
+            if (channel.size() > fileBytes)
+                channel.truncate(fileBytes);
+
+            // Mapping beyond the end of the file extends it with zeros
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_BYTES);
+            int segmentCount =
+                (slotCount + SLOTS_PER_SEGMENT - 1)/SLOTS_PER_SEGMENT;
+            segments = new MappedByteBuffer[segmentCount];
+            segmentInts = new IntBuffer[segmentCount];
+            for (int s=0; s<segmentCount; s++) {
+                int slots = Math.min(SLOTS_PER_SEGMENT,
+                    slotCount - s*SLOTS_PER_SEGMENT);
+                segments[s] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES + (long)s*SLOTS_PER_SEGMENT*SLOT_BYTES,
+                    (long)slots*SLOT_BYTES);
+                segmentInts[s] = segments[s].asIntBuffer();
+            }
+
+            header.putLong(0, MAGIC);
+            header.putInt(8, VERSION);
+            header.putInt(12, TileCache.TILE_SIZE);
+            header.putInt(16, slotCount);
+
+            stamps = new long[slotCount];
+            loadIndex();
+            opened = true;
+        } finally {
+            if (!opened)
+                abandon(fileChannel, fileLock);
+        }
+
+        writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(MAX_PENDING_WRITES),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Mandelscape tile store");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Release the lock and channel of a store which failed to open, and
+     * give up its claim on the file.  Errors are ignored so that the
+     * original failure is the one reported.
+     *
+     * @param fileChannel channel to the file, or null
+     * @param fileLock lock on the file, or null
+     */
+    private void abandon(FileChannel fileChannel, FileLock fileLock) {
+        if (fileLock != null) {
+            try {
+                fileLock.release();
+            } catch (IOException ex) {
+                // Closing the channel releases it anyway
+            }
+        }
+        if (fileChannel != null) {
+            try {
+                fileChannel.close();
+            } catch (IOException ex) {
+                // Already closed
+            }
+        }
+
+        synchronized (openFiles) {
+            openFiles.remove(file);
+        }
+    }
+
+    /**
+     * Rebuild the index from the slot headers, ordering tiles by stamp so
+     * that the most recently written are the last to be evicted.
+     */
+    private void loadIndex() {
+        List<Integer> occupied = new ArrayList<Integer>();
+        for (int slot=0; slot<slotCount; slot++) {
+            long stamp = slotBuffer(slot).getLong(slotOffset(slot));
+            if (stamp != 0) {
+                stamps[slot] = stamp;
+                nextStamp = Math.max(nextStamp, stamp + 1);
+                occupied.add(slot);
+            } else
+                freeSlots.add(slot);
+        }
+
+        Collections.sort(occupied, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Long.compare(stamps[a], stamps[b]);
+            }
+        });
+
+        for (int slot : occupied) {
+            TileCache.Key key = readKey(slot);
+            if (key == null || index.containsKey(key)) {
+                stamps[slot] = 0;
+                freeSlots.add(slot);
+            } else
+                index.put(key, slot);
+        }
+    }
+
+    private MappedByteBuffer slotBuffer(int slot) {
+        return segments[slot/SLOTS_PER_SEGMENT];
+    }
+
+    private static int slotOffset(int slot) {
+        return (slot % SLOTS_PER_SEGMENT)*SLOT_BYTES;
+    }
+
+    private TileCache.Key readKey(int slot) {
+        MappedByteBuffer buf = slotBuffer(slot);
+        int offset = slotOffset(slot);
+
+        int kernelLength = buf.getInt(offset + 44);
+        if (kernelLength < 0 || kernelLength > MAX_KERNEL_BYTES)
+            return null;
+
+        byte[] kernel = new byte[kernelLength];
+        for (int i=0; i<kernelLength; i++)
+            kernel[i] = buf.get(offset + 48 + i);
+
+        return new TileCache.Key(buf.getLong(offset + 8), buf.getLong(offset + 16),
+            buf.getLong(offset + 24), buf.getLong(offset + 32),
+            buf.getInt(offset + 40), new String(kernel, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Copy a rectangle of a stored tile into a row-major destination.
+     *
+     * @param key tile to read
+     * @param x0 leftmost tile column to copy
+     * @param y0 top tile row to copy
+     * @param width number of columns to copy
+     * @param height number of rows to copy
+     * @param dest destination array
+     * @param destOffset index in dest of the top-left pixel
+     * @param destStride row length of dest
+     * @return false if the tile is not stored, in which case the contents
+     * of the destination rectangle are undefined
+     */
+    public boolean read(TileCache.Key key, int x0, int y0, int width,
+        int height, int[] dest, int destOffset, int destStride) {
+        int slot;
+        long stamp;
+        synchronized (this) {
+            Integer entry = index.get(key);
+            if (entry == null) {
+                misses += 1;
+                return false;
+            }
+            slot = entry;
+            stamp = stamps[slot];
+        }
+
+        IntBuffer ints = segmentInts[slot/SLOTS_PER_SEGMENT];
+        int base = (slotOffset(slot) + SLOT_HEADER_BYTES)/4;
+        int ts = TileCache.TILE_SIZE;
+        for (int y=0; y<height; y++)
+            ints.get(base + (y0 + y)*ts + x0, dest, destOffset + y*destStride, width);
+
+        // Discard the copy if the slot was reused while it was being read
+        synchronized (this) {
+            if (stamps[slot] != stamp) {
+                misses += 1;
+                return false;
+            }
+            hits += 1;
+        }
+
+        return true;
+    }
+
+    /**
+     * Queue a tile to be written to the store.  The array must not be
+     * modified afterwards.  Tiles are dropped if too many are waiting.
+     *
+     * @param key
+     * @param tile
+     */
+    public void putAsync(final TileCache.Key key, final int[] tile) {
+        if (key.kernel.length() > MAX_KERNEL_BYTES || writer.isShutdown())
+            return;
+
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                put(key, tile);
+            }
+        });
+    }
+
+    /**
+     * Write a tile into a free slot, or the least recently used one.
+     * Called only on the writer thread.
+     */
+    private void put(TileCache.Key key, int[] tile) {
+        int slot;
+        long stamp;
+        synchronized (this) {
+            if (index.containsKey(key))
+                return;
+
+            if (freeSlots.isEmpty()) {
+                Iterator<Map.Entry<TileCache.Key, Integer>> it =
+                    index.entrySet().iterator();
+                freeSlots.add(it.next().getValue());
+                it.remove();
+                evictions += 1;
+            }
+            slot = freeSlots.poll();
+            stamps[slot] = 0;
+            stamp = nextStamp++;
+        }
+
+        MappedByteBuffer buf = slotBuffer(slot);
+        int offset = slotOffset(slot);
+
+        // Mark the slot empty until the new tile is complete
+        buf.putLong(offset, 0);
+        segmentInts[slot/SLOTS_PER_SEGMENT].put(
+            (offset + SLOT_HEADER_BYTES)/4, tile, 0, TILE_INTS);
+
+        byte[] kernel = key.kernel.getBytes(StandardCharsets.US_ASCII);
+        buf.putLong(offset + 8, key.levelX);
+        buf.putLong(offset + 16, key.levelY);
+        buf.putLong(offset + 24, key.tileX);
+        buf.putLong(offset + 32, key.tileY);
+        buf.putInt(offset + 40, key.maxIter);
+        buf.putInt(offset + 44, kernel.length);
+        for (int i=0; i<kernel.length; i++)
+            buf.put(offset + 48 + i, kernel[i]);
+        buf.putLong(offset, stamp);
+
+        synchronized (this) {
+            stamps[slot] = stamp;
+            index.put(key, slot);
+            writes += 1;
+        }
+    }
+
+    /**
+     * @return maximum number of tiles held.
+     */
+    public int getCapacity() {
+        return slotCount;
+    }
+
+    /**
+     * @return number of tiles currently held.
+     */
+    public synchronized int getTileCount() {
+        return index.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getWrites() {
+        return writes;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Wait for queued writes to complete and write the mapping back to
+     * disk, then close the file.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (MappedByteBuffer segment : segments)
+            segment.force();
+        header.force();
+        lock.release();
+        channel.close();
+
+        synchronized (openFiles) {
+            openFiles.remove(file);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * RowKernel which iterates one full vector of points at a time using the
+ * incubating Vector API.  Each lane performs exactly the same sequence of
+ * double operations as EscapeKernel.getEscapeIters(), including the cycle
+ * check, so results are identical.  Lanes stop counting iterations once
+ * their point escapes or becomes periodic, and the vector is finished as
+ * soon as every lane has.
+ *
+ * Once |z|^2 exceeds ESCAPE_RADIUS2 it never returns below it, so escaped
+ * lanes can safely keep iterating until the whole vector is done.
+ *
+ * The loop is written so that no vector or mask is conditionally
+ * reassigned, as the JIT otherwise falls back to allocating them on the
+ * heap.  This class needs the jdk.incubator.vector module, so it is only
+ * ever loaded reflectively by EscapeKernel.getRowKernel().
+ *
+ * @author agent <agent@local>
+ */
+public class VectorRowKernel implements RowKernel {
+
+    private static final VectorSpecies<Double> SPECIES =
+        DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Iteration at which the orbit is first saved for cycle detection.
+     */
+    private static final int FIRST_CHECKPOINT = 8;
+
+    /**
+     * @return number of points iterated at once.
+     */
+    public int getLanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public void getEscapeIters(double[] cr, double[] ci, int count,
+        int maxIter, int[] iters, int offset, double[] zrOut, double[] ziOut) {
+        int lanes = SPECIES.length();
+        boolean[] known = new boolean[lanes];
+        double[] counts = new double[lanes];
+        double[] zrLanes = zrOut != null ? new double[lanes] : null;
+        double[] ziLanes = zrOut != null ? new double[lanes] : null;
+
+        for (int k=0; k<count; k+=lanes) {
+            // Lanes already known to remain bounded
+            boolean allKnown = true;
+            for (int lane=0; lane<lanes; lane++) {
+                known[lane] = k + lane >= count || EscapeKernel
+                    .isInMainComponents(cr[k + lane], ci[k + lane]);
+                allKnown &= known[lane];
+            }
+            if (allKnown) {
+                for (int lane=0; lane<lanes && k + lane<count; lane++) {
+                    iters[offset + k + lane] = -1;
+                    if (zrOut != null) {
+                        zrOut[k + lane] = Double.NaN;
+                        ziOut[k + lane] = Double.NaN;
+                    }
+                }
+                continue;
+            }
+            VectorMask<Double> bounded = VectorMask.fromArray(SPECIES, known, 0);
+            VectorMask<Double> inRange = SPECIES.indexInRange(k, count);
+            DoubleVector vcr = DoubleVector.fromArray(SPECIES, cr, k, inRange);
+            DoubleVector vci = DoubleVector.fromArray(SPECIES, ci, k, inRange);
+
+            DoubleVector zr = DoubleVector.zero(SPECIES);
+            DoubleVector zi = zr, zr2 = zr, zi2 = zr;
+            DoubleVector savedZr = zr, savedZi = zr;
+            DoubleVector iter = zr;
+            int checkpoint = FIRST_CHECKPOINT;
+
+            for (int i=0; i<maxIter; i++) {
+                zi = zr.mul(2.0).mul(zi).add(vci);
+                zr = zr2.sub(zi2).add(vcr);
+
+                zr2 = zr.mul(zr);
+                zi2 = zi.mul(zi);
+                VectorMask<Double> inside = zr2.add(zi2)
+                    .compare(VectorOperators.LE, EscapeKernel.ESCAPE_RADIUS2);
+
+                bounded = bounded.or(zr.eq(savedZr).and(zi.eq(savedZi))
+                    .and(inside));
+                if (!inside.andNot(bounded).anyTrue())
+                    break;
+
+                // Count the iterations of lanes which have not escaped
+                iter = iter.add(1.0, inside);
+
+                VectorMask<Double> save = SPECIES.maskAll(i == checkpoint);
+                savedZr = savedZr.blend(zr, save);
+                savedZi = savedZi.blend(zi, save);
+                if (i == checkpoint)
+                    checkpoint <<= 1;
+            }
+
+            iter.intoArray(counts, 0);
+            bounded.intoArray(known, 0);
+            for (int lane=0; lane<lanes && k + lane<count; lane++) {
+                int c = (int)counts[lane];
+                iters[offset + k + lane] = known[lane] || c == maxIter ? -1 : c;
+            }
+
+            // Lanes still bounded after maxIter iterations ran the whole
+            // loop, so their z is the one to resume from
+            if (zrOut != null) {
+                zr.intoArray(zrLanes, 0);
+                zi.intoArray(ziLanes, 0);
+                for (int lane=0; lane<lanes && k + lane<count; lane++) {
+                    zrOut[k + lane] = known[lane] ? Double.NaN : zrLanes[lane];
+                    ziOut[k + lane] = known[lane] ? Double.NaN : ziLanes[lane];
+                }
+            }
+        }
+    }
+}
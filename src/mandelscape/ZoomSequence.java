@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders the frames of a zoom from one view to another.  As with
+ * MandelModel.zoom(CDouble, double), every frame is obtained from the
+ * start view by zooming about a single fixed point, which is chosen so
+ * that the sequence ends on the end view.  The span of the frames varies
+ * exponentially with the eased frame time.
+ *
+ * Rather than computing each frame, keyframes are computed at twice the
+ * frame resolution for spans separated by factors of two.  Each frame is
+ * then resampled from the smallest keyframe which contains it, whose
+ * pixels are between one and two times finer than the frame's.  Frames
+ * are resampled and written to disk on a separate pool of threads while
+ * the next keyframe is computed.
+ *
+ * @author agent <agent@local>
+ */
+public class ZoomSequence {
+
+    /**
+     * Mapping from frame time to progress along the zoom.
+     */
+    public enum Easing {
+        LINEAR("linear") {
+            @Override
+            public double apply(double t) {
+                return t;
+            }
+        },
+        SMOOTH("smooth") {
+            @Override
+            public double apply(double t) {
+                return t*t*(3 - 2*t);
+            }
+        };
+
+        public final String name;
+
+        Easing(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @param t frame time between 0 and 1
+         * @return progress between 0 and 1
+         */
+        public abstract double apply(double t);
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Keyframe resolution relative to the frames.
+     */
+    private static final int KEYFRAME_SCALE = 2;
+
+    private final MandelView start, end;
+    private final int frames;
+    private final Easing easing;
+
+    /**
+     * Fixed point of the zoom and its offset from the start centre.
+     */
+    private final BigDecimal fixedReal, fixedImag;
+    private final double fixedOffsetReal, fixedOffsetImag;
+    private final MathContext mc;
+
+    private final double logSpanRatio;
+
+    private int keyframesRendered = 0;
+
+    /**
+     * Create a new zoom sequence.  The views must have the same pixel
+     * dimensions and differ in scale.
+     *
+     * @param start first frame
+     * @param end last frame
+     * @param frames number of frames, including the first and last
+     * @param easing
+     */
+    public ZoomSequence(MandelView start, MandelView end, int frames,
+        Easing easing) {
+        if (start.width != end.width || start.height != end.height)
+            throw new IllegalArgumentException("Start and end views must "
+                + "have the same dimensions.");
+        if (frames < 2)
+            throw new IllegalArgumentException("At least two frames are required.");
+
+        double spanRatio = end.pixelWidth/start.pixelWidth;
+        if (spanRatio == 1.0)
+            throw new IllegalArgumentException("Start and end views must "
+                + "differ in scale.");
+
+        this.start = start;
+        this.end = end;
+        this.frames = frames;
+        this.easing = easing;
+        this.logSpanRatio = Math.log(spanRatio);
+
+        // Fixed point P satisfies end - P = spanRatio*(start - P)
+        mc = MandelView.getMathContext(Math.min(
+            Math.min(start.pixelWidth, start.pixelHeight),
+            Math.min(end.pixelWidth, end.pixelHeight)));
+        BigDecimal ratio = new BigDecimal(spanRatio);
+        BigDecimal denom = BigDecimal.ONE.subtract(ratio);
+        fixedReal = end.centreReal.subtract(ratio.multiply(start.centreReal), mc)
+            .divide(denom, mc);
+        fixedImag = end.centreImag.subtract(ratio.multiply(start.centreImag), mc)
+            .divide(denom, mc);
+        fixedOffsetReal = fixedReal.subtract(start.centreReal, mc).doubleValue();
+        fixedOffsetImag = fixedImag.subtract(start.centreImag, mc).doubleValue();
+    }
+
+    /**
+     * @return number of keyframes computed by the last call to render().
+     */
+    public int getKeyframesRendered() {
+        return keyframesRendered;
+    }
+
+    /**
+     * Render the sequence, writing each frame to a PNG file.
+     *
+     * @param engine engine with which to compute keyframes
+     * @param colourModel
+     * @param filePattern format string for the frame file names, applied
+     * to the frame index
+     * @param level deflate compression level, 0-9
+     * @throws IOException
+     */
+    public void render(RenderEngine engine, MandelColourModel colourModel,
+        String filePattern, int level) throws IOException {
+        int threads = engine.getParallelism();
+        ExecutorService encoder = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<Void>> pending = new ArrayDeque<Future<Void>>();
+
+        keyframesRendered = 0;
+        try {
+            MandelView keyframe = null;
+            int[] keyframeRGB = null;
+            int keyframeLevel = 0;
+
+            for (int i=0; i<frames; i++) {
+                double progress = easing.apply(i/(double)(frames - 1));
+                double scale = Math.exp(progress*logSpanRatio);
+
+                // Keyframe of span start*2^-level contains this frame
+                int keyLevel = (int)Math.floor(-Math.log(scale)/Math.log(2) + 1e-9);
+                if (keyframe == null || keyLevel != keyframeLevel) {
+                    keyframe = getKeyframe(keyLevel);
+                    keyframeLevel = keyLevel;
+
+                    int[] iters = new int[keyframe.width*keyframe.height];
+                    if (keyframe.precision == Precision.PERTURBATION)
+                        engine.renderPerturbed(keyframe, iters, Cancellable.NEVER);
+                    else
+                        engine.render(keyframe, iters, Cancellable.NEVER);
+
+                    keyframeRGB = new int[iters.length];
+                    colourModel.fillRGB(iters, keyframeRGB);
+                    keyframesRendered += 1;
+                }
+
+                if (pending.size() >= 2*threads)
+                    waitFor(pending.removeFirst());
+                pending.addLast(encoder.submit(new FrameTask(keyframe,
+                    keyframeRGB, scale, String.format(filePattern, i), keyLevel,
+                    level)));
+            }
+
+            while (!pending.isEmpty())
+                waitFor(pending.removeFirst());
+        } finally {
+            encoder.shutdownNow();
+        }
+    }
+
+    /**
+     * Construct the keyframe whose span is that of the start view scaled
+     * by 2^-level.
+     *
+     * @param level
+     * @return keyframe view
+     */
+    private MandelView getKeyframe(int level) {
+        double scale = Math.scalb(1.0, -level);
+        double spanReal = scale*start.width*start.pixelWidth;
+        double spanImag = scale*start.height*start.pixelHeight;
+
+        // Deeper keyframes get proportionally more iterations
+        double progress = Math.max(0.0, Math.min(1.0, Math.log(scale)/logSpanRatio));
+        int maxIter = (int)Math.round(start.maxIter
+            + progress*(end.maxIter - start.maxIter));
+
+        // Centre P + (start - P)*scale
+        BigDecimal bigScale = new BigDecimal(scale);
+        return new MandelView(
+            start.centreReal.subtract(fixedReal).multiply(bigScale).add(fixedReal, mc),
+            start.centreImag.subtract(fixedImag).multiply(bigScale).add(fixedImag, mc),
+            spanReal, spanImag,
+            KEYFRAME_SCALE*start.width, KEYFRAME_SCALE*start.height, maxIter);
+    }
+
+    /**
+     * Linearly interpolate between two packed RGB colours.
+     *
+     * @param a
+     * @param b
+     * @param f weight of b
+     * @return interpolated colour
+     */
+    private static int blend(int a, int b, double f) {
+        int r = (int)((a >> 16 & 0xff) + f*((b >> 16 & 0xff) - (a >> 16 & 0xff)) + 0.5);
+        int g = (int)((a >> 8 & 0xff) + f*((b >> 8 & 0xff) - (a >> 8 & 0xff)) + 0.5);
+        int bl = (int)((a & 0xff) + f*((b & 0xff) - (a & 0xff)) + 0.5);
+        return (r << 16) | (g << 8) | bl;
+    }
+
+    private static void waitFor(Future<Void> task) throws IOException {
+        try {
+            task.get();
+        } catch (InterruptedException ex) {
+            throw new IOException("Interrupted while writing frames.", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException)
+                throw (IOException)ex.getCause();
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    /**
+     * Resamples a single frame from its keyframe and writes it to disk.
+     */
+    private class FrameTask implements Callable<Void> {
+
+        private final MandelView keyframe;
+        private final int[] keyframeRGB;
+        private final double scale;
+        private final String fileName;
+        private final int level, compressionLevel;
+
+        FrameTask(MandelView keyframe, int[] keyframeRGB, double scale,
+            String fileName, int level, int compressionLevel) {
+            this.keyframe = keyframe;
+            this.keyframeRGB = keyframeRGB;
+            this.scale = scale;
+            this.fileName = fileName;
+            this.level = level;
+            this.compressionLevel = compressionLevel;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            int width = start.width, height = start.height;
+            int kw = keyframe.width, kh = keyframe.height;
+
+            // Frame centre and pixel size in keyframe pixel units
+            double keyScale = Math.scalb(1.0, -level);
+            double cx = fixedOffsetReal*(keyScale - scale)/keyframe.pixelWidth + 0.5*kw;
+            double cy = fixedOffsetImag*(keyScale - scale)/keyframe.pixelHeight + 0.5*kh;
+            double sx = scale*start.pixelWidth/keyframe.pixelWidth;
+            double sy = scale*start.pixelHeight/keyframe.pixelHeight;
+
+            PngStreamWriter writer = new PngStreamWriter(
+                new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16),
+                width, height, compressionLevel);
+
+            boolean complete = false;
+            try {
+                writeRows(writer, cx, cy, sx, sy);
+                writer.close();
+                complete = true;
+            } finally {
+                if (!complete) {
+                    writer.abort();
+                    new File(fileName).delete();
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Resample every row of the frame into writer.
+         *
+         * @param writer
+         * @param cx horizontal frame centre in keyframe pixels
+         * @param cy vertical frame centre in keyframe pixels
+         * @param sx frame pixel width in keyframe pixels
+         * @param sy frame pixel height in keyframe pixels
+         * @throws IOException
+         */
+        private void writeRows(PngStreamWriter writer, double cx, double cy,
+            double sx, double sy) throws IOException {
+            int width = start.width, height = start.height;
+            int kw = keyframe.width, kh = keyframe.height;
+            int[] row = new int[width];
+
+            for (int y=0; y<height; y++) {
+                double ky = cy + (y - 0.5*height)*sy;
+                int y0 = Math.max(0, Math.min(kh - 2, (int)Math.floor(ky)));
+                double fy = Math.max(0.0, Math.min(1.0, ky - y0));
+
+                for (int x=0; x<width; x++) {
+                    double kx = cx + (x - 0.5*width)*sx;
+                    int x0 = Math.max(0, Math.min(kw - 2, (int)Math.floor(kx)));
+                    double fx = Math.max(0.0, Math.min(1.0, kx - x0));
+
+                    int i = y0*kw + x0;
+                    row[x] = blend(
+                        blend(keyframeRGB[i], keyframeRGB[i+1], fx),
+                        blend(keyframeRGB[i+kw], keyframeRGB[i+kw+1], fx), fy);
+                }
+
+                writer.writeRow(row, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the frames published by MandelModel.
+ *
+ * @author agent <agent@local>
+ */
+public class MandelModelTest {
+
+    /**
+     * Records whether each published frame was complete, and counts down
+     * once a complete frame has been published.
+     */
+    private static class FrameListener implements MandelModelChangeListener {
+
+        final MandelModel model;
+        final List<Boolean> complete =
+            Collections.synchronizedList(new ArrayList<Boolean>());
+        final CountDownLatch done = new CountDownLatch(1);
+
+        FrameListener(MandelModel model) {
+            this.model = model;
+        }
+
+        @Override
+        public void modelHasChanged() {
+            complete.add(model.isFrameComplete());
+            if (model.isFrameComplete())
+                done.countDown();
+        }
+    }
+
+    /**
+     * Request a frame on the event dispatch thread and wait for the
+     * complete frame to be published.
+     *
+     * @param model
+     * @return whether each published frame was complete, in order
+     * @throws Exception
+     */
+    private static List<Boolean> renderFrame(final MandelModel model)
+        throws Exception {
+        final FrameListener listener = new FrameListener(model);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                model.addChangeListener(listener);
+                model.update();
+            }
+        });
+
+        assertTrue("No complete frame published",
+            listener.done.await(60, TimeUnit.SECONDS));
+
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                model.removeChangeListener(listener);
+            }
+        });
+
+        return listener.complete;
+    }
+
+    @Test
+    public void progressiveFramesPublishedWithCache() throws Exception {
+        MandelModel model = new MandelModel(500, 200, 150);
+        model.setTileCache(new TileCache(16L << 20));
+
+        List<Boolean> complete = renderFrame(model);
+
+        assertEquals(3, complete.size());
+        assertFalse(complete.get(0));
+        assertFalse(complete.get(1));
+        assertTrue(complete.get(2));
+    }
+
+    @Test
+    public void cachedFramesPublishedWhole() throws Exception {
+        TileCache cache = new TileCache(16L << 20);
+        MandelModel first = new MandelModel(500, 200, 150);
+        first.setTileCache(cache);
+        renderFrame(first);
+
+        // Every tile of the same view is now cached
+        MandelModel model = new MandelModel(500, 200, 150);
+        model.setTileCache(cache);
+        List<Boolean> complete = renderFrame(model);
+
+        assertEquals(1, complete.size());
+        assertTrue(complete.get(0));
+    }
+
+    /**
+     * Get the displayed frame of model on the event dispatch thread.
+     *
+     * @param model
+     * @return iteration counts of the displayed frame
+     * @throws Exception
+     */
+    private static int[] getFrameIters(final MandelModel model)
+        throws Exception {
+        final int[][] frame = new int[1][];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                frame[0] = model.getFrameIters();
+            }
+        });
+
+        return frame[0];
+    }
+
+    @Test
+    public void pannedFrameMatchesCachedFrame() throws Exception {
+        MandelModel panned = new MandelModel(500, 200, 150);
+        panned.setTileCache(new TileCache(16L << 20));
+        renderFrame(panned);
+        panned.pan(37, -23);
+        renderFrame(panned);
+
+        // The same view assembled from tiles alone
+        MandelModel fresh = new MandelModel(500, 200, 150);
+        fresh.setTileCache(new TileCache(16L << 20));
+        fresh.pan(37, -23);
+        renderFrame(fresh);
+
+        assertArrayEquals(getFrameIters(fresh), getFrameIters(panned));
+    }
+}
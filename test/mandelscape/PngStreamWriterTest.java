@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Tests that images written by PngStreamWriter decode to the rows which
+ * were written.
+ *
+ * @author agent <agent@local>
+ */
+public class PngStreamWriterTest {
+
+    /**
+     * Dimensions of the test image, tall enough to span several
+     * compressed blocks.
+     */
+    private static final int WIDTH = 301, HEIGHT = 700;
+
+    /**
+     * @return packed RGB colours of a deterministic test image, with
+     * smooth gradients and noise so that every filter byte is exercised.
+     */
+    private static int[] getTestImage() {
+        int[] rgb = new int[WIDTH*HEIGHT];
+        for (int y=0; y<HEIGHT; y++) {
+            for (int x=0; x<WIDTH; x++) {
+                long hash = MandelView.mix(y*WIDTH + x);
+                int noise = (int)hash & 0x0f0f0f;
+                rgb[y*WIDTH + x] = ((x & 0xff) << 16 | (y & 0xff) << 8
+                    | ((x + y) & 0xff)) ^ noise;
+            }
+        }
+
+        return rgb;
+    }
+
+    /**
+     * Write an image and decode it again with ImageIO.
+     *
+     * @param rgb packed RGB colours of the image
+     * @param executor executor on which to compress, or null
+     * @return packed RGB colours of the decoded image
+     * @throws Exception
+     */
+    private static int[] writeAndDecode(int[] rgb, ExecutorService executor)
+        throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PngStreamWriter writer = new PngStreamWriter(out, WIDTH, HEIGHT, 6,
+            executor, 4);
+        for (int y=0; y<HEIGHT; y++)
+            writer.writeRow(rgb, y*WIDTH);
+        writer.close();
+        assertEquals(HEIGHT, writer.getCompressedRows());
+
+        BufferedImage image = ImageIO.read(
+            new ByteArrayInputStream(out.toByteArray()));
+        assertNotNull("Image could not be decoded", image);
+        assertEquals(WIDTH, image.getWidth());
+        assertEquals(HEIGHT, image.getHeight());
+
+        int[] decoded = image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+        for (int i=0; i<decoded.length; i++)
+            decoded[i] &= 0xffffff;
+
+        return decoded;
+    }
+
+    @Test
+    public void imageDecodes() throws Exception {
+        int[] rgb = getTestImage();
+        assertArrayEquals(rgb, writeAndDecode(rgb, null));
+    }
+
+    @Test
+    public void imageCompressedInParallelDecodes() throws Exception {
+        int[] rgb = getTestImage();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            assertArrayEquals(rgb, writeAndDecode(rgb, executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Tests that the float and double-double kernel tiers agree with double
+ * precision where double precision is itself exact enough.
+ *
+ * @author agent <agent@local>
+ */
+public class PrecisionTest {
+
+    /**
+     * Compute iteration counts for points on a grid of spacing 1/64 over
+     * the whole set, all of which are exact in single precision.
+     *
+     * @param precision kernel tier to use
+     * @param maxIter
+     * @return iteration counts, row by row
+     */
+    private static int[] getGridIters(Precision precision, int maxIter) {
+        int[] iters = new int[241*161];
+        int n = 0;
+        for (int j=-80; j<=80; j++) {
+            for (int i=-160; i<=80; i++) {
+                double cr = i/64.0, ci = j/64.0;
+                switch (precision) {
+                    case FLOAT:
+                        iters[n++] = FloatKernel.getEscapeIters((float)cr,
+                            (float)ci, maxIter);
+                        break;
+
+                    case DOUBLE_DOUBLE:
+                        iters[n++] = DoubleDoubleKernel.getEscapeIters(cr,
+                            0.0, 0.0, ci, 0.0, 0.0, maxIter);
+                        break;
+
+                    default:
+                        iters[n++] = EscapeKernel.getEscapeIters(cr, ci,
+                            maxIter);
+                }
+            }
+        }
+
+        return iters;
+    }
+
+    @Test
+    public void floatKernelMatchesDouble() {
+        // Rounding differences grow with the number of iterations, so the
+        // float tier only agrees exactly over short orbits
+        assertArrayEquals(getGridIters(Precision.DOUBLE, 50),
+            getGridIters(Precision.FLOAT, 50));
+    }
+
+    @Test
+    public void doubleDoubleKernelMatchesDouble() {
+        assertArrayEquals(getGridIters(Precision.DOUBLE, 100),
+            getGridIters(Precision.DOUBLE_DOUBLE, 100));
+    }
+
+    @Test
+    public void doubleDoubleFrameMatchesDoubleFrame() {
+        MandelView view = new MandelView(-2.1, 0.9, -1.2, 1.2, 240, 190,
+            200);
+        RenderEngine engine = new RenderEngine(2);
+
+        int[] expected = new int[view.width*view.height];
+        engine.render(view.withPrecision(Precision.DOUBLE), expected,
+            Cancellable.NEVER);
+
+        int[] iters = new int[view.width*view.height];
+        engine.render(view.withPrecision(Precision.DOUBLE_DOUBLE), iters,
+            Cancellable.NEVER);
+
+        assertArrayEquals(expected, iters);
+    }
+}
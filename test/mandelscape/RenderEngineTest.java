@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import java.math.BigDecimal;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the different ways RenderEngine computes a frame agree.
+ *
+ * @author agent <agent@local>
+ */
+public class RenderEngineTest {
+
+    private static final int MAX_ITER = 300;
+
+    /**
+     * @return view of the whole set, snapped onto the tile grid.
+     */
+    private static MandelView getSnappedView() {
+        return TileCache.getSnappedView(new MandelView(-2.1, 0.9, -1.2, 1.2,
+            240, 190, MAX_ITER));
+    }
+
+    /**
+     * @param view
+     * @param dx
+     * @param dy
+     * @return view whose content is that of view moved dx pixels right
+     * and dy pixels down.
+     */
+    private static MandelView getTranslatedView(MandelView view, int dx,
+        int dy) {
+        return new MandelView(
+            view.centreReal.subtract(new BigDecimal(dx*view.pixelWidth)),
+            view.centreImag.subtract(new BigDecimal(dy*view.pixelHeight)),
+            view.width*view.pixelWidth, view.height*view.pixelHeight,
+            view.width, view.height, view.maxIter, view.precision);
+    }
+
+    /**
+     * Compute every pixel of view one at a time on the calling thread.
+     *
+     * @param view double precision view
+     * @return iteration counts of the frame
+     */
+    private static int[] renderSerially(MandelView view) {
+        int[] iters = new int[view.width*view.height];
+        for (int y=0; y<view.height; y++) {
+            for (int x=0; x<view.width; x++) {
+                iters[y*view.width + x] = EscapeKernel.getEscapeIters(
+                    view.getRealJittered(x, y, 0.1),
+                    view.getImagJittered(x, y, 0.1), view.maxIter);
+            }
+        }
+
+        return iters;
+    }
+
+    private static int[] renderCached(RenderEngine engine, MandelView view) {
+        int[] iters = new int[view.width*view.height];
+        engine.renderCached(view, iters, Cancellable.NEVER,
+            new TileCache(16L << 20));
+        return iters;
+    }
+
+    @Test
+    public void parallelFrameMatchesSerialFrame() {
+        MandelView view = new MandelView(-2.1, 0.9, -1.2, 1.2, 240, 190,
+            MAX_ITER).withPrecision(Precision.DOUBLE);
+        int[] serial = renderSerially(view);
+
+        for (int parallelism : new int[] {1, 4}) {
+            int[] iters = new int[view.width*view.height];
+            new RenderEngine(parallelism).render(view, iters,
+                Cancellable.NEVER);
+            assertArrayEquals(serial, iters);
+        }
+    }
+
+    @Test
+    public void progressiveFrameMatchesSerialFrame() {
+        MandelView view = new MandelView(-2.1, 0.9, -1.2, 1.2, 240, 190,
+            MAX_ITER).withPrecision(Precision.DOUBLE);
+        RenderEngine engine = new RenderEngine(4);
+
+        int[] iters = new int[view.width*view.height];
+        for (int step=4; step>=1; step/=2)
+            engine.renderPass(view, iters, Cancellable.NEVER, step, step < 4);
+
+        assertArrayEquals(renderSerially(view), iters);
+    }
+
+    @Test
+    public void cachedFrameMatchesPlainFrame() {
+        RenderEngine engine = new RenderEngine(2);
+        MandelView view = getSnappedView();
+
+        int[] plain = new int[view.width*view.height];
+        engine.render(view, plain, Cancellable.NEVER);
+
+        assertArrayEquals(plain, renderCached(engine, view));
+    }
+
+    @Test
+    public void shiftedFrameMatchesCachedFrame() {
+        RenderEngine engine = new RenderEngine(2);
+        MandelView base = getSnappedView();
+        int[] baseIters = renderCached(engine, base);
+
+        MandelView view = getTranslatedView(base, 37, -23);
+        assertTrue(view.isPixelTranslationOf(base));
+
+        int[] shifted = new int[view.width*view.height];
+        engine.renderShifted(view, shifted, Cancellable.NEVER, baseIters,
+            view.getShiftX(base), view.getShiftY(base));
+
+        assertArrayEquals(renderCached(engine, view), shifted);
+    }
+}
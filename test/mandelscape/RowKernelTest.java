@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package mandelscape;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeNotNull;
+
+/**
+ * Tests that the row kernels agree with each other and with EscapeKernel.
+ *
+ * @author agent <agent@local>
+ */
+public class RowKernelTest {
+
+    private static final int MAX_ITER = 300;
+
+    /**
+     * Number of points in a row, chosen not to be a multiple of any
+     * vector length so that partly filled vectors are exercised.
+     */
+    private static final int COUNT = 301;
+
+    /**
+     * @return the Vector API kernel, or null if it is not available to
+     * this JVM.
+     */
+    private static RowKernel loadVectorKernel() {
+        try {
+            return (RowKernel)Class.forName("mandelscape.VectorRowKernel")
+                .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        } catch (LinkageError ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Check that kernel gives the same counts and final values of z as
+     * ScalarRowKernel for each row of a view of the whole set.
+     *
+     * @param kernel
+     */
+    private static void assertMatchesScalar(RowKernel kernel) {
+        RowKernel scalar = new ScalarRowKernel();
+        double[] cr = new double[COUNT];
+        double[] ci = new double[COUNT];
+
+        for (int row=0; row<100; row++) {
+            for (int k=0; k<COUNT; k++) {
+                cr[k] = -2.1 + 3.0*(k + 0.37)/COUNT;
+                ci[k] = -1.2 + 2.4*(row + 0.61)/100;
+            }
+
+            int[] expected = new int[COUNT + 3];
+            double[] expectedZr = new double[COUNT];
+            double[] expectedZi = new double[COUNT];
+            scalar.getEscapeIters(cr, ci, COUNT, MAX_ITER, expected, 3,
+                expectedZr, expectedZi);
+
+            int[] iters = new int[COUNT + 3];
+            kernel.getEscapeIters(cr, ci, COUNT, MAX_ITER, iters, 3, null,
+                null);
+            assertArrayEquals(expected, iters);
+
+            double[] zr = new double[COUNT];
+            double[] zi = new double[COUNT];
+            kernel.getEscapeIters(cr, ci, COUNT, MAX_ITER, iters, 3, zr, zi);
+            assertArrayEquals(expected, iters);
+
+            // Final values of z are only defined for unfinished points
+            for (int k=0; k<COUNT; k++) {
+                if (expected[3 + k] >= 0)
+                    continue;
+
+                assertEquals(expectedZr[k], zr[k], 0.0);
+                assertEquals(expectedZi[k], zi[k], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void scalarKernelMatchesEscapeKernel() {
+        double[] cr = new double[COUNT];
+        double[] ci = new double[COUNT];
+        int[] expected = new int[COUNT];
+        for (int k=0; k<COUNT; k++) {
+            cr[k] = -2.1 + 3.0*(k + 0.37)/COUNT;
+            ci[k] = 0.3 + 0.01*k/COUNT;
+            expected[k] = EscapeKernel.getEscapeIters(cr[k], ci[k], MAX_ITER);
+        }
+
+        int[] iters = new int[COUNT];
+        new ScalarRowKernel().getEscapeIters(cr, ci, COUNT, MAX_ITER, iters,
+            0, null, null);
+        assertArrayEquals(expected, iters);
+    }
+
+    @Test
+    public void vectorKernelMatchesScalarKernel() {
+        RowKernel kernel = loadVectorKernel();
+        assumeNotNull(kernel);
+
+        assertMatchesScalar(kernel);
+    }
+}